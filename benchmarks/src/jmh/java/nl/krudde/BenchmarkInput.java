@@ -0,0 +1,40 @@
+package nl.krudde;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Puzzle input for the benchmarks, read from the resources directory of the project.
+ * The build passes that directory in the system property aoc.resources.
+ */
+class BenchmarkInput {
+    private static final String RESOURCES = System.getProperty("aoc.resources", "resources");
+
+    static String fileName(int day) {
+        return Paths.get(RESOURCES, "day_" + day + ".txt").toString();
+    }
+
+    static List<String> lines(int day) throws IOException {
+        return Files.lines(Paths.get(fileName(day))).collect(toList());
+    }
+
+    static long[] intcodeProgram(int day) throws IOException {
+        return Arrays.stream(lines(day).get(0).split(","))
+                .mapToLong(Long::valueOf)
+                .toArray();
+    }
+
+    /**
+     * The days print their progress, which should not be part of the measurement.
+     */
+    static void silenceConsole() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+}
@@ -0,0 +1,38 @@
+package nl.krudde;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class Day_01Benchmark {
+    private long[] masses;
+
+    @Setup
+    public void setup() throws IOException {
+        masses = BenchmarkInput.lines(1).stream()
+                .mapToLong(Long::parseLong)
+                .toArray();
+    }
+
+    @Benchmark
+    public long totalFuel() {
+        long totalFuel = 0;
+        for (long mass : masses) {
+            totalFuel += Day_01.calculateFuel(mass);
+        }
+        return totalFuel;
+    }
+
+    @Benchmark
+    public long totalFuelForMassAndFuel() {
+        long totalFuel = 0;
+        for (long mass : masses) {
+            totalFuel += Day_01.calculateFuelForMassAndFuel(mass);
+        }
+        return totalFuel;
+    }
+}
@@ -0,0 +1,33 @@
+package nl.krudde;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class Day_02Benchmark {
+    private int[] program;
+
+    @Setup
+    public void setup() throws IOException {
+        program = Arrays.stream(BenchmarkInput.lines(2).get(0).split(","))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+    }
+
+    @Benchmark
+    public int run() {
+        Intcode intcode = new Intcode(program, 12, 2);
+        intcode.run();
+        return intcode.getPosition0();
+    }
+
+    @Benchmark
+    public int findNounAndVerb() {
+        return Day_02.findNounAndVerb(program, 19690720);
+    }
+}
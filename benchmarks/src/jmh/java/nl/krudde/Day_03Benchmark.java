@@ -0,0 +1,38 @@
+package nl.krudde;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class Day_03Benchmark {
+    private List<Wire> wires;
+
+    @Setup
+    public void setup() throws IOException {
+        // only the first 2 lines are the puzzle, the others are examples
+        List<String> input = BenchmarkInput.lines(3);
+        wires = List.of(wire(input.get(0)), wire(input.get(1)));
+    }
+
+    private static Wire wire(String directions) {
+        Wire wire = new Wire(Day_03.STARTPOINT);
+        Arrays.stream(directions.split(",")).forEach(wire::addDirection);
+        return wire;
+    }
+
+    @Benchmark
+    public List<WireCrossing> crossings() {
+        return SegmentSweep.crossings(wires, Day_03.STARTPOINT);
+    }
+
+    @Benchmark
+    public WireIndex wireIndex() {
+        return new WireIndex(wires, Day_03.STARTPOINT);
+    }
+}
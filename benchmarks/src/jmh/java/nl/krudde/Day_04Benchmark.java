@@ -0,0 +1,37 @@
+package nl.krudde;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class Day_04Benchmark {
+    private long lowest;
+    private long highest;
+
+    @Setup
+    public void setup() throws IOException {
+        String[] range = BenchmarkInput.lines(4).get(0).split("-");
+        lowest = Long.parseLong(range[0]);
+        highest = Long.parseLong(range[1]);
+    }
+
+    @Benchmark
+    public long adjacentDigitsEqual() {
+        return new PasswordCounter(PasswordRule.ADJACENT_DIGITS_EQUAL).count(lowest, highest);
+    }
+
+    @Benchmark
+    public long strictlyTwoAdjacentDigitsEqual() {
+        return new PasswordCounter(PasswordRule.STRICTLY_TWO_ADJACENT_DIGITS_EQUAL).count(lowest, highest);
+    }
+
+    @Benchmark
+    public long fullRange() {
+        // all passwords of 18 digits, the counter does not walk the numbers
+        return new PasswordCounter(PasswordRule.STRICTLY_TWO_ADJACENT_DIGITS_EQUAL).count(100_000_000_000_000_000L, 999_999_999_999_999_999L);
+    }
+}
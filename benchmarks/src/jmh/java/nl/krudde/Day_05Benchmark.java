@@ -0,0 +1,28 @@
+package nl.krudde;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class Day_05Benchmark {
+    private long[] program;
+
+    @Setup
+    public void setup() throws IOException {
+        program = BenchmarkInput.intcodeProgram(5);
+    }
+
+    @Benchmark
+    public long thermalRadiatorDiagnostic() {
+        IntcodeComputer intcode = new IntcodeComputer.IntcodeComputerBuilder()
+                .program(program)
+                .build();
+        intcode.addInput(5);
+        intcode.run();
+        return intcode.getOutput();
+    }
+}
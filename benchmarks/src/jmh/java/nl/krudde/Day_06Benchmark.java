@@ -0,0 +1,53 @@
+package nl.krudde;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class Day_06Benchmark {
+    private List<String> input;
+    private OrbitTree orbitTree;
+    private List<OrbitQuery> queries;
+
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkInput.silenceConsole();
+        input = BenchmarkInput.lines(6);
+        orbitTree = new OrbitTree(input);
+
+        // queries between the satellites of random relations, all bodies of the puzzle input orbit the same center
+        Random random = new Random(6);
+        queries = IntStream.range(0, 10_000)
+                .mapToObj(i -> new OrbitQuery(satellite(input.get(random.nextInt(input.size()))), satellite(input.get(random.nextInt(input.size())))))
+                .collect(toList());
+    }
+
+    private static String satellite(String relation) {
+        return relation.substring(relation.indexOf(')') + 1);
+    }
+
+    @Benchmark
+    public long totalOrbits() {
+        return new OrbitTree(input).totalOrbits();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int transfers() {
+        return orbitTree.transfers("YOU", "SAN");
+    }
+
+    @Benchmark
+    public int[] distances() {
+        return orbitTree.distances(queries);
+    }
+}
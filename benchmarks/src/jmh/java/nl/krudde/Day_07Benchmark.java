@@ -0,0 +1,35 @@
+package nl.krudde;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class Day_07Benchmark {
+    private long[] program;
+    private IntcodeComputer[] bootedAmplifiers;
+
+    @Setup
+    public void setup() throws IOException {
+        program = BenchmarkInput.intcodeProgram(7);
+        bootedAmplifiers = Day_07.bootAmplifiers(program);
+    }
+
+    @Benchmark
+    public IntcodeComputer[] bootAmplifiers() {
+        return Day_07.bootAmplifiers(program);
+    }
+
+    @Benchmark
+    public long maxThrusterSignal() {
+        return Day_07.maxThrusterSignal(bootedAmplifiers);
+    }
+
+    @Benchmark
+    public long maxThrusterSignalWithFeedback() {
+        return Day_07.maxThrusterSignalWithFeedback(bootedAmplifiers);
+    }
+}
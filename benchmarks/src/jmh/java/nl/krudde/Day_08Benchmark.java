@@ -0,0 +1,36 @@
+package nl.krudde;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class Day_08Benchmark {
+    private static final int PIXELS_PER_LAYER = 25 * 6;
+
+    private String pixels;
+
+    @Setup
+    public void setup() throws IOException {
+        pixels = BenchmarkInput.lines(8).get(0);
+    }
+
+    @Benchmark
+    public Layer layerWithLowestNumberOfZeros() {
+        return Image.of(pixels, PIXELS_PER_LAYER).getLayerWithLowestNumberOfZeros();
+    }
+
+    @Benchmark
+    public Image decodeImage() {
+        return Image.of(pixels, PIXELS_PER_LAYER).decodeImage();
+    }
+
+    @Benchmark
+    public Image streamingDecoder() throws IOException {
+        return new SpaceImageDecoder(PIXELS_PER_LAYER).decode(Paths.get(BenchmarkInput.fileName(8))).getDecodedImage();
+    }
+}
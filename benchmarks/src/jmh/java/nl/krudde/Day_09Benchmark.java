@@ -0,0 +1,42 @@
+package nl.krudde;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Intcode run loop, interpreted and compiled: the BOOST program in sensor boost mode runs
+ * several hundred thousand instructions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class Day_09Benchmark {
+    private long[] program;
+
+    @Setup
+    public void setup() throws IOException {
+        program = BenchmarkInput.intcodeProgram(9);
+    }
+
+    @Benchmark
+    public long runInterpreted() {
+        return runSensorBoost(false);
+    }
+
+    @Benchmark
+    public long runCompiled() {
+        return runSensorBoost(true);
+    }
+
+    private long runSensorBoost(boolean compiled) {
+        IntcodeComputer intcode = new IntcodeComputer.IntcodeComputerBuilder()
+                .program(program)
+                .compiled(compiled)
+                .build();
+        intcode.addInput(2);
+        intcode.run();
+        return intcode.getOutput();
+    }
+}
@@ -0,0 +1,104 @@
+package nl.krudde;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class Day_10Benchmark {
+    private static final int LARGE_FIELD_SIZE = 500;
+    private static final int LARGE_FIELD_ASTEROIDS = 5_000;
+
+    private AsteroidField asteroidField;
+    private int station;
+    private AsteroidField largeAsteroidField;
+
+    @Setup
+    public void setup() throws IOException {
+        asteroidField = new AsteroidField(Day_10.parseInput(BenchmarkInput.lines(10)));
+        station = asteroidField.bestStation();
+
+        // random asteroids, none on the same location
+        Random random = new Random(10);
+        Set<Point> asteroids = new LinkedHashSet<>();
+        while (asteroids.size() < LARGE_FIELD_ASTEROIDS) {
+            asteroids.add(new Point(random.nextInt(LARGE_FIELD_SIZE), random.nextInt(LARGE_FIELD_SIZE)));
+        }
+        largeAsteroidField = new AsteroidField(new ArrayList<>(asteroids));
+    }
+
+    @Benchmark
+    public int bestStation() {
+        return asteroidField.bestStation();
+    }
+
+    @Benchmark
+    public int bestStationLargeField() {
+        return largeAsteroidField.bestStation();
+    }
+
+    @Benchmark
+    public Point vaporized200() {
+        return vaporized(asteroidField.vaporizationOrder(station), 200);
+    }
+
+    /**
+     * The k-th vaporized asteroid in a field of a million asteroids, from a station in the middle.
+     * The iterator is created outside the measurement: it sorts the directions once, after that the cost should grow with k.
+     */
+    @State(Scope.Benchmark)
+    public static class VaporizationField {
+        private static final int SIZE = 2_000;
+        private static final int NR_ASTEROIDS = 1_000_000;
+
+        @Param({"200", "20000", "200000"})
+        private int k;
+
+        private AsteroidField asteroidField;
+        private int station;
+        private Iterator<Point> vaporizationOrder;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            Random random = new Random(10);
+            Set<Point> asteroids = new LinkedHashSet<>();
+            asteroids.add(new Point(SIZE / 2, SIZE / 2));
+            while (asteroids.size() < NR_ASTEROIDS) {
+                asteroids.add(new Point(random.nextInt(SIZE), random.nextInt(SIZE)));
+            }
+            asteroidField = new AsteroidField(new ArrayList<>(asteroids));
+            station = 0;
+        }
+
+        @Setup(Level.Invocation)
+        public void createVaporizationOrder() {
+            vaporizationOrder = asteroidField.vaporizationOrder(station);
+        }
+    }
+
+    @Benchmark
+    public Iterator<Point> vaporizationOrderLargeField(VaporizationField field) {
+        return field.asteroidField.vaporizationOrder(field.station);
+    }
+
+    @Benchmark
+    public Point vaporizedLargeField(VaporizationField field) {
+        return vaporized(field.vaporizationOrder, field.k);
+    }
+
+    private static Point vaporized(Iterator<Point> vaporizationOrder, int k) {
+        for (int i = 1; i < k; i++) {
+            vaporizationOrder.next();
+        }
+        return vaporizationOrder.next();
+    }
+}
@@ -0,0 +1,60 @@
+package nl.krudde;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class Day_11Benchmark {
+    // the robot paints random colors, and turns on the color it finds like on the hull
+    private static final int NR_STEPS = 10_000_000;
+
+    private long[] program;
+    private Color[] colors;
+    private HullCanvas paintedHull;
+
+    @Setup
+    public void setup() throws IOException {
+        program = BenchmarkInput.intcodeProgram(11);
+
+        Random random = new Random(11);
+        colors = new Color[NR_STEPS];
+        for (int i = 0; i < NR_STEPS; i++) {
+            colors[i] = Color.values()[random.nextInt(Color.values().length)];
+        }
+        paintedHull = randomWalk();
+    }
+
+    @Benchmark
+    public HullCanvas paintHull() {
+        return Day_11.paintHull(program, Color.WHITE);
+    }
+
+    @Benchmark
+    public HullCanvas paintRandomWalk() {
+        return randomWalk();
+    }
+
+    @Benchmark
+    public List<String> renderRandomWalk() {
+        return paintedHull.render();
+    }
+
+    private HullCanvas randomWalk() {
+        HullCanvas hull = new HullCanvas();
+        long location = PackedPoint.pack(0, 0);
+        Direction direction = Direction.U;
+        for (int i = 0; i < NR_STEPS; i++) {
+            Color found = hull.getColor(location);
+            hull.paint(location, colors[i]);
+            direction = direction.nextDirection(found == Color.WHITE ? PaintRobotDirection.RIGHT90 : PaintRobotDirection.LEFT90);
+            location = PackedPoint.next(location, direction);
+        }
+        return hull;
+    }
+}
@@ -0,0 +1,32 @@
+package nl.krudde;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class Day_12Benchmark {
+    private List<int[]> moons;
+
+    @Setup
+    public void setup() throws IOException {
+        moons = Day_12.createMoonsFromInput(BenchmarkInput.lines(12));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int totalEnergy() {
+        NBodySimulation simulation = new NBodySimulation(moons);
+        simulation.steps(1000);
+        return simulation.totalEnergy();
+    }
+
+    @Benchmark
+    public long[] cycleLengths() {
+        return new NBodySimulation(moons).cycleLengths();
+    }
+}
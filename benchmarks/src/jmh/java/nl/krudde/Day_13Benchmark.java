@@ -0,0 +1,29 @@
+package nl.krudde;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class Day_13Benchmark {
+    private long[] program;
+
+    @Setup
+    public void setup() throws IOException {
+        program = BenchmarkInput.intcodeProgram(13);
+    }
+
+    @Benchmark
+    public int countBlocks() {
+        return Day_13.countBlocks(program);
+    }
+
+    @Benchmark
+    public GameResult playGame() {
+        // without printing every frame of the screen
+        return Day_13.playGame(program, false);
+    }
+}
@@ -0,0 +1,27 @@
+package nl.krudde;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class Day_14Benchmark {
+    private NanoFactory nanoFactory;
+
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkInput.silenceConsole();
+        List<Reaction> reactions = Day_14.readReactionsFromInput(BenchmarkInput.lines(14));
+        nanoFactory = new NanoFactory(reactions);
+    }
+
+    @Benchmark
+    public long calculateAmountOfOre() {
+        nanoFactory.reset();
+        return nanoFactory.calculateAmountOfOre(1);
+    }
+}
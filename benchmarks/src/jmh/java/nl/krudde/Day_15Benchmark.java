@@ -0,0 +1,29 @@
+package nl.krudde;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class Day_15Benchmark {
+    private long[] program;
+
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkInput.silenceConsole();
+        program = BenchmarkInput.intcodeProgram(15);
+    }
+
+    @Benchmark
+    public int exploreAreaAndFillWithOxygen() {
+        IntcodeComputer intcode = new IntcodeComputer.IntcodeComputerBuilder()
+                .program(program)
+                .build();
+        RepairDroid repairDroid = new RepairDroid(intcode);
+        repairDroid.exploreArea();
+        return repairDroid.calculateShortestPathToOxygenLocation() + repairDroid.calculateMinutesToFillShipWithOxygen();
+    }
+}
@@ -0,0 +1,35 @@
+package nl.krudde;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class Day_16Benchmark {
+    private static final int NR_PHASES = 100;
+
+    private List<Integer> signal;
+
+    @Setup
+    public void setup() throws IOException {
+        signal = BenchmarkInput.lines(16).get(0)
+                .chars()
+                .mapToObj(Character::getNumericValue)
+                .collect(toList());
+    }
+
+    @Benchmark
+    public List<Integer> phases() {
+        // phases work in place on the list
+        FlawedFrequencyTransmission flawedFrequencyTransmission = new FlawedFrequencyTransmission(new ArrayList<>(signal));
+        flawedFrequencyTransmission.phases(NR_PHASES);
+        return flawedFrequencyTransmission.getList();
+    }
+}
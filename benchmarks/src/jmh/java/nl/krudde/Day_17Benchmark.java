@@ -0,0 +1,40 @@
+package nl.krudde;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class Day_17Benchmark {
+    private long[] program;
+
+    @Setup
+    public void setup() throws IOException {
+        program = BenchmarkInput.intcodeProgram(17);
+    }
+
+    private IntcodeComputer computer() {
+        return new IntcodeComputer.IntcodeComputerBuilder()
+                .program(program)
+                .build();
+    }
+
+    @Benchmark
+    public int sumAlignmentParameters() {
+        VacuumRobotComputer vacuumRobotComputer = new VacuumRobotComputer(computer());
+        vacuumRobotComputer.exploreArea();
+        return vacuumRobotComputer.sumAlignmentParameters();
+    }
+
+    @Benchmark
+    public int walkAllScaffoldsAndCollectDust() {
+        // the walk needs the explored area
+        VacuumRobotComputer vacuumRobotComputer = new VacuumRobotComputer(computer());
+        vacuumRobotComputer.exploreArea();
+        vacuumRobotComputer.setProgram(computer());
+        return vacuumRobotComputer.walkAllScaffoldsAndCollectDust(true);
+    }
+}
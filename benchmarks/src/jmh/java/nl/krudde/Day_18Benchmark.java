@@ -0,0 +1,32 @@
+package nl.krudde;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class Day_18Benchmark {
+    private List<String> input;
+
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkInput.silenceConsole();
+        input = BenchmarkInput.lines(18);
+    }
+
+    @Benchmark
+    public long collectAllKeys() {
+        return new UndergroundVault(input).collectAllKeys();
+    }
+
+    @Benchmark
+    public long collectAllKeysPart2() {
+        UndergroundVault undergroundVault = new UndergroundVault(input);
+        undergroundVault.fixMapForPart2();
+        return undergroundVault.collectAllKeysPart2();
+    }
+}
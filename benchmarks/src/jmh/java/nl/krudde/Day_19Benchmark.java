@@ -0,0 +1,28 @@
+package nl.krudde;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class Day_19Benchmark {
+    private IntcodeComputer bootedDrone;
+
+    @Setup
+    public void setup() throws IOException {
+        bootedDrone = Day_19.bootDrone(BenchmarkInput.intcodeProgram(19));
+    }
+
+    @Benchmark
+    public int nrPointsAffected() {
+        return Day_19.nrPointsAffected(bootedDrone, 50);
+    }
+
+    @Benchmark
+    public int findSquare() {
+        return Day_19.findSquare(bootedDrone);
+    }
+}
@@ -0,0 +1,30 @@
+package nl.krudde;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class Day_20Benchmark {
+    private List<String> input;
+
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkInput.silenceConsole();
+        input = BenchmarkInput.lines(20);
+    }
+
+    @Benchmark
+    public int nrStepsShortestPath() {
+        return new DonutMaze(input).nrStepsShortestPath();
+    }
+
+    @Benchmark
+    public int nrStepsShortestPathWithRecursion() {
+        return new DonutMaze(input).nrStepsShortestPathWithRecursion();
+    }
+}
@@ -0,0 +1,28 @@
+package nl.krudde;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class Day_21Benchmark {
+    private long[] program;
+
+    @Setup
+    public void setup() throws IOException {
+        program = BenchmarkInput.intcodeProgram(21);
+    }
+
+    @Benchmark
+    public long walk() {
+        return Day_21.runSpringdroid(program, Day_21.WALK_SPRINGSCRIPT, "WALK", false);
+    }
+
+    @Benchmark
+    public long run() {
+        return Day_21.runSpringdroid(program, Day_21.RUN_SPRINGSCRIPT, "RUN", false);
+    }
+}
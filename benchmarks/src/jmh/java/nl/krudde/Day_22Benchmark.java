@@ -0,0 +1,26 @@
+package nl.krudde;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class Day_22Benchmark {
+    private List<String> shuffle;
+
+    @Setup
+    public void setup() throws IOException {
+        shuffle = BenchmarkInput.lines(22);
+    }
+
+    @Benchmark
+    public int shuffle() {
+        Deck deck = new Deck(10007);
+        shuffle.forEach(deck::handleLine);
+        return deck.getDeck().indexOf(2019);
+    }
+}
@@ -0,0 +1,44 @@
+package nl.krudde;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Both networks of day 23 running until the NAT sees the same y value twice.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class Day_23Benchmark {
+    private static final int NR_COMPUTERS = 50;
+
+    private long[] program;
+
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkInput.silenceConsole();
+        program = BenchmarkInput.intcodeProgram(23);
+    }
+
+    @Benchmark
+    public long roundBasedNetwork() {
+        Network network = new Network(NR_COMPUTERS, program);
+        while (network.getFirstDuplicateYValueSentToNAT().isEmpty()) {
+            network.receiveAndSendMessages();
+        }
+        return network.getFirstDuplicateYValueSentToNAT().get();
+    }
+
+    @Benchmark
+    public long concurrentNetwork() {
+        ConcurrentNetwork concurrentNetwork = new ConcurrentNetwork(NR_COMPUTERS, program);
+        concurrentNetwork.start();
+        try {
+            return concurrentNetwork.getFirstDuplicateYValueSentToNAT().join();
+        } finally {
+            concurrentNetwork.stop();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package nl.krudde;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class Day_24Benchmark {
+    private static final int NR_MINUTES = 200;
+
+    private List<String> input;
+
+    @Setup
+    public void setup() throws IOException {
+        input = BenchmarkInput.lines(24);
+    }
+
+    /**
+     * Same loop as part 2 of {@link Day_24#main}: every minute adds an empty grid on both sides.
+     */
+    @Benchmark
+    public int doMinuteWithRecursion() {
+        Grid grid = new Grid();
+        grid.readInput(input);
+        grid.clearMiddleTile();
+
+        List<Grid> grids = new ArrayList<>(List.of(new Grid(), new Grid(), grid, new Grid(), new Grid()));
+        for (int minute = 0; minute < NR_MINUTES; minute++) {
+            List<Grid> newGrids = new ArrayList<>();
+            newGrids.add(new Grid());
+            newGrids.add(new Grid());
+            for (int i = 1; i < grids.size() - 1; i++) {
+                newGrids.add(grids.get(i).doMinuteWithRecursion(grids.get(i - 1), grids.get(i + 1)));
+            }
+            newGrids.add(new Grid());
+            newGrids.add(new Grid());
+            grids = newGrids;
+        }
+        return grids.stream()
+                .mapToInt(Grid::numberOfBugs)
+                .sum();
+    }
+}
@@ -0,0 +1,29 @@
+package nl.krudde;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class Day_25Benchmark {
+    private long[] program;
+
+    @Setup
+    public void setup() throws IOException {
+        // the droid prints its conversation
+        BenchmarkInput.silenceConsole();
+        program = BenchmarkInput.intcodeProgram(25);
+    }
+
+    @Benchmark
+    public String guessWeightAndGetCode() {
+        Droid droid = new Droid(new IntcodeComputer.IntcodeComputerBuilder()
+                .program(program)
+                .build());
+        droid.goToPressureSensitiveFloorRoom();
+        return droid.guessWeightAndGetCode();
+    }
+}
@@ -42,7 +42,7 @@ public class Day_01 {
         System.out.println("duration (ms): " + Duration.between(start, finish).toMillis());
     }
 
-    private static long calculateFuelForMassAndFuel(long mass) {
+    static long calculateFuelForMassAndFuel(long mass) {
         long totalFuel = 0;
         long fuel = mass;
 
@@ -54,7 +54,7 @@ public class Day_01 {
         return totalFuel;
     }
 
-    private static long calculateFuel(long mass) {
+    static long calculateFuel(long mass) {
         long fuel = mass / 3 - 2;
         if (fuel < 0) {
             fuel = 0;
@@ -71,24 +71,32 @@ public class Day_02 {
 
         System.out.println("\npart 2: ");
         int result = 19690720;
+        int nounAndVerb = findNounAndVerb(intCodeProgram, result);
+        int noun = nounAndVerb / 100;
+        int verb = nounAndVerb % 100;
+        System.out.println("intCodeProgram[0] = " + result);
+        System.out.println("noun = " + noun);
+        System.out.println("verb = " + verb);
+        System.out.println("100 * noun + verb = " + nounAndVerb);
+
+        finish = LocalTime.now();
+        System.out.println("duration (ms): " + Duration.between(start, finish).toMillis());
+    }
+
+    /**
+     * @return 100 * noun + verb of the first noun and verb for which the program leaves the result at position 0
+     */
+    static int findNounAndVerb(int[] intCodeProgram, int result) {
         for (int noun = 0; noun <= 99; noun++) {
             for (int verb = 0; verb <= 99; verb++) {
-                intcode = new Intcode(intCodeProgram, noun, verb);
+                Intcode intcode = new Intcode(intCodeProgram, noun, verb);
                 intcode.run();
                 if (intcode.getPosition0() == result) {
-                    System.out.println("intCodeProgram[0] = " + intcode.getPosition0());
-                    System.out.println("noun = " + noun);
-                    System.out.println("verb = " + verb);
-                    System.out.println("100 * noun + verb = " + (100 * noun + verb));
-                    finish = LocalTime.now();
-                    System.out.println("duration (ms): " + Duration.between(start, finish).toMillis());
-                    return;
+                    return 100 * noun + verb;
                 }
             }
         }
-
-        finish = LocalTime.now();
-        System.out.println("duration (ms): " + Duration.between(start, finish).toMillis());
+        throw new IllegalStateException("no noun and verb for: " + result);
     }
 
     private static List<String> readFile(String[] args) throws IOException {
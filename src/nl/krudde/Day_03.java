@@ -9,14 +9,9 @@ import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
 
 import static java.nio.file.Path.of;
-import static java.util.Comparator.comparingInt;
-import static java.util.stream.Collectors.*;
+import static java.util.stream.Collectors.toList;
 
 public class Day_03 {
 
@@ -34,22 +29,10 @@ public class Day_03 {
         System.out.println("\npart 1: ");
         Wire wire1 = buildWire(input.get(0));
         Wire wire2 = buildWire(input.get(1));
+        WireIndex wireIndex = new WireIndex(List.of(wire1, wire2), STARTPOINT);
 
-        List<Point> intersections =
-                Stream.concat(wire1.getAllPoints().stream().distinct(), wire2.getAllPoints().stream().distinct())
-                        .collect(groupingBy(Function.identity(), counting()))
-                        .entrySet()
-                        .stream()
-                        .filter(p -> p.getValue() > 1)
-                        .map(Map.Entry::getKey)
-                        .collect(toList());
-
-        Point closestIntersection =
-                intersections.stream()
-                        .min(comparingInt(p -> calculateManhattanDistance(STARTPOINT, p)))
-                        .orElseThrow(() -> new IllegalStateException("no intersection found"));
-
-        int closestIntersectionDistance = calculateManhattanDistance(STARTPOINT, closestIntersection);
+        int closestIntersectionDistance = wireIndex.closestDistance(0, 1)
+                .orElseThrow(() -> new IllegalStateException("no intersection found"));
         System.out.println("closestIntersectionDistance = " + closestIntersectionDistance);
 
         LocalTime finish = LocalTime.now();
@@ -59,9 +42,7 @@ public class Day_03 {
         start = LocalTime.now();
 
         System.out.println("\npart 2: ");
-        int shortestSumWireDistanceToIntersection = intersections.parallelStream()
-                .mapToInt(intersection -> calculateSumWireDistance(intersection, wire1, wire2))
-                .min()
+        int shortestSumWireDistanceToIntersection = wireIndex.fewestSteps(0, 1)
                 .orElseThrow(() -> new IllegalStateException("no values"));
         System.out.println("shortestSumWireDistanceToIntersection = " + shortestSumWireDistanceToIntersection);
 
@@ -69,10 +50,6 @@ public class Day_03 {
         System.out.println("duration (ms): " + Duration.between(start, finish).toMillis());
     }
 
-    private static int calculateSumWireDistance(Point intersection, Wire wire1, Wire wire2) {
-        return wire1.getAllPoints().indexOf(intersection) + wire2.getAllPoints().indexOf(intersection) + 2;
-    }
-
     private static Wire buildWire(String s) {
         Wire wire = new Wire(STARTPOINT);
         Arrays.stream(s.split(","))
@@ -164,11 +141,16 @@ enum Direction {
 }
 
 class Wire {
+    @Getter
+    final Point start;
     Point end;
     @Getter
     List<Path> pathList = new ArrayList<>();
+    // number of steps from the start to the end
+    int length = 0;
 
     Wire(Point start) {
+        this.start = start;
         end = start;
     }
 
@@ -182,14 +164,9 @@ class Wire {
             case U -> new Point(end.getX(), end.getY() - length);
             case D -> new Point(end.getX(), end.getY() + length);
         };
-        pathList.add(new Path(end, point, d));
+        pathList.add(new Path(end, point, d, this.length));
         end = point;
-    }
-
-    public List<Point> getAllPoints() {
-        return getPathList().stream()
-                .flatMap(path -> path.getPoints().stream())
-                .collect(toList());
+        this.length += length;
     }
 }
 
@@ -200,7 +177,8 @@ class Path {
     final Point start, end;
     @NonNull
     final Direction direction;
-    List<Point> points = null;
+    // number of steps along the wire to the start of this path
+    final int stepsAtStart;
 
     int getLength() {
         return switch (direction) {
@@ -211,13 +189,31 @@ class Path {
         };
     }
 
-    List<Point> getPoints() {
-        if (points == null) {
-            points = IntStream.rangeClosed(1, getLength())
-                    .mapToObj(i -> start.nextPoint(direction, i))
-                    .collect(toList());
-        }
-        return points;
+    boolean isHorizontal() {
+        return direction == Direction.L || direction == Direction.R;
+    }
+
+    int getMinX() {
+        return Math.min(start.getX(), end.getX());
+    }
+
+    int getMaxX() {
+        return Math.max(start.getX(), end.getX());
+    }
+
+    int getMinY() {
+        return Math.min(start.getY(), end.getY());
+    }
+
+    int getMaxY() {
+        return Math.max(start.getY(), end.getY());
+    }
+
+    /**
+     * @return number of steps along the wire to a point on this path
+     */
+    int getStepsAt(int x, int y) {
+        return stepsAtStart + Math.abs(x - start.getX()) + Math.abs(y - start.getY());
     }
 }
 
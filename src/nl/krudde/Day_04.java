@@ -5,8 +5,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalTime;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.IntStream;
 
 import static java.util.stream.Collectors.toList;
 
@@ -22,13 +22,10 @@ public class Day_04 {
 
         // part 1
         System.out.println("\npart 1: ");
-        int lowestNr = Integer.parseInt(input.get(0).split("-")[0]);
-        int highestNr = Integer.parseInt(input.get(0).split("-")[1]);
+        long lowestNr = Long.parseLong(input.get(0).split("-")[0]);
+        long highestNr = Long.parseLong(input.get(0).split("-")[1]);
 
-        long count = IntStream.rangeClosed(lowestNr, highestNr)
-                .filter(Day_04::twoAdjacentDigitsEqual)
-                .filter(Day_04::digitsDoNotDecrease)
-                .count();
+        long count = new PasswordCounter(PasswordRule.ADJACENT_DIGITS_EQUAL).count(lowestNr, highestNr);
         System.out.println("count = " + count);
 
         LocalTime finish = LocalTime.now();
@@ -38,56 +35,12 @@ public class Day_04 {
         start = LocalTime.now();
         System.out.println("\npart 2: ");
 
-        count = IntStream.rangeClosed(lowestNr, highestNr)
-                .filter(Day_04::strictlyTwoAdjacentDigitsEqual)
-                .filter(Day_04::digitsDoNotDecrease)
-                .count();
+        count = new PasswordCounter(PasswordRule.STRICTLY_TWO_ADJACENT_DIGITS_EQUAL).count(lowestNr, highestNr);
         System.out.println("count = " + count);
         finish = LocalTime.now();
         System.out.println("duration (ms): " + Duration.between(start, finish).toMillis());
     }
 
-    private static boolean strictlyTwoAdjacentDigitsEqual(int number) {
-        String s = String.valueOf(number);
-        for (int i = 1; i < 6; i++) {
-            if (s.charAt(i - 1) == s.charAt(i)) {
-                // 2 adjacent digits equal, check if not part of greater group
-                if (i > 1) {
-                    if (s.charAt(i - 2) == s.charAt(i - 1)) {
-                        continue;
-                    }
-                }
-                if (i < 5) {
-                    if (s.charAt(i + 1) == s.charAt(i)) {
-                        continue;
-                    }
-                }
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private static boolean digitsDoNotDecrease(int number) {
-        String s = String.valueOf(number);
-        for (int i = 1; i < 6; i++) {
-            if (s.charAt(i) < s.charAt(i - 1)) {
-                return false;
-            }
-        }
-        return true;
-    }
-
-    private static boolean twoAdjacentDigitsEqual(int number) {
-        String s = String.valueOf(number);
-        for (int i = 1; i < 6; i++) {
-            if (s.charAt(i - 1) == s.charAt(i)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     private static List<String> readFile(String[] args) throws IOException {
         String fileName;
         if (args.length == 0) {
@@ -104,3 +57,131 @@ public class Day_04 {
         return input;
     }
 }
+
+enum PasswordRule {
+    // a group of at least 2 adjacent digits which are the same
+    ADJACENT_DIGITS_EQUAL,
+    // a group of exactly 2 adjacent digits which are the same, not part of a larger group
+    STRICTLY_TWO_ADJACENT_DIGITS_EQUAL;
+
+    boolean isMatchingGroup(int groupLength) {
+        return switch (this) {
+            case ADJACENT_DIGITS_EQUAL -> groupLength >= 2;
+            case STRICTLY_TWO_ADJACENT_DIGITS_EQUAL -> groupLength == 2;
+        };
+    }
+}
+
+/**
+ * Counts the passwords in a range: numbers with digits which do not decrease and a group of equal digits matching the rule.
+ * <p>
+ * Instead of checking every number, this is a digit DP: the number of ways to complete the digits so far only depends on
+ * the number of digits left, the last digit, the length of its group and whether a matching group was found already.
+ * Numbers can have any number of digits, so ranges up to 18 digits are counted in microseconds.
+ */
+class PasswordCounter {
+    // Long.MAX_VALUE has 19 digits
+    private static final int MAX_DIGITS = 19;
+    // groups of 3 or more digits are the same for the rules
+    private static final int MAX_GROUP_LENGTH = 3;
+    private static final long UNKNOWN = -1;
+
+    private final PasswordRule rule;
+    // memo on [digits left][last digit][group length][matching group found]
+    private final long[][][][] completions = new long[MAX_DIGITS + 1][10][MAX_GROUP_LENGTH + 1][2];
+
+    PasswordCounter(PasswordRule rule) {
+        this.rule = rule;
+        for (long[][][] byDigit : completions) {
+            for (long[][] byGroupLength : byDigit) {
+                for (long[] byFound : byGroupLength) {
+                    Arrays.fill(byFound, UNKNOWN);
+                }
+            }
+        }
+    }
+
+    long count(long lowest, long highest) {
+        if (lowest > highest) {
+            return 0;
+        }
+        return countUpTo(highest) - countUpTo(lowest - 1);
+    }
+
+    /**
+     * @return the number of passwords between 1 and the number (inclusive)
+     */
+    private long countUpTo(long number) {
+        if (number <= 0) {
+            return 0;
+        }
+        String digits = String.valueOf(number);
+        int nrDigits = digits.length();
+
+        long count = 0;
+        // all numbers with fewer digits, a first digit of 0 would make the number shorter
+        for (int shorter = 1; shorter < nrDigits; shorter++) {
+            for (int digit = 1; digit <= 9; digit++) {
+                count += completionsAfter(0, 0, false, digit, shorter - 1);
+            }
+        }
+
+        // numbers with as many digits: lower than the number at the first digit where they differ
+        int last = 0;
+        int groupLength = 0;
+        boolean found = false;
+        for (int i = 0; i < nrDigits; i++) {
+            int digit = digits.charAt(i) - '0';
+            for (int lower = Math.max(last, 1); lower < digit; lower++) {
+                count += completionsAfter(last, groupLength, found, lower, nrDigits - i - 1);
+            }
+            if (digit < last) {
+                // the digits of the number itself decrease, so no more passwords start with these digits
+                return count;
+            }
+            if (digit == last) {
+                groupLength = Math.min(groupLength + 1, MAX_GROUP_LENGTH);
+            } else {
+                found = found || rule.isMatchingGroup(groupLength);
+                groupLength = 1;
+            }
+            last = digit;
+        }
+        // the number itself
+        if (found || rule.isMatchingGroup(groupLength)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of passwords starting with the digits so far, ending in a group of the last digit,
+     * followed by the digit and the digits left
+     */
+    private long completionsAfter(int last, int groupLength, boolean found, int digit, int digitsLeft) {
+        if (groupLength == 0) {
+            // no digits so far
+            return completions(digitsLeft, digit, 1, false);
+        }
+        if (digit == last) {
+            return completions(digitsLeft, digit, Math.min(groupLength + 1, MAX_GROUP_LENGTH), found);
+        }
+        return completions(digitsLeft, digit, 1, found || rule.isMatchingGroup(groupLength));
+    }
+
+    private long completions(int digitsLeft, int last, int groupLength, boolean found) {
+        if (digitsLeft == 0) {
+            return found || rule.isMatchingGroup(groupLength) ? 1 : 0;
+        }
+        long[] memo = completions[digitsLeft][last][groupLength];
+        int foundIndex = found ? 1 : 0;
+        if (memo[foundIndex] == UNKNOWN) {
+            long count = 0;
+            for (int digit = last; digit <= 9; digit++) {
+                count += completionsAfter(last, groupLength, found, digit, digitsLeft - 1);
+            }
+            memo[foundIndex] = count;
+        }
+        return memo[foundIndex];
+    }
+}
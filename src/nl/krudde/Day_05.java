@@ -1,8 +1,5 @@
 package nl.krudde;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -14,91 +11,31 @@ import java.util.Scanner;
 
 import static java.util.stream.Collectors.toList;
 
-@Data
-@AllArgsConstructor
-class IntcodeV2 {
-    final private int MODE_POSITION = 0;
-    final private int MODE_IMMEDIATE = 1;
-    private int[] program;
-
-    public void run() {
-        program = program.clone();
-
-        int position = 0;
-        int opcode;
-        int firstParameter, secondParameter;
-        long counter = 0;
-        while (program[position] != 99) {
-            opcode = getOpcode(position);
-            switch (opcode) {
-                case 1 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    program[program[position + 3]] = firstParameter + secondParameter;
-                    position += 4;
-                }
-                case 2 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    program[program[position + 3]] = firstParameter * secondParameter;
-                    position += 4;
-                }
-                case 3 -> {
-                    Scanner scanner = new Scanner(System.in);
-                    program[program[position + 1]] = scanner.nextInt();
-                    scanner.close();
-                    position += 2;
-                }
-                case 4 -> {
-                    firstParameter = getParameter(position, 1);
-                    System.out.println(firstParameter);
-                    position += 2;
-                }
-                case 5 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    if (firstParameter != 0) {
-                        position = secondParameter;
-                    } else {
-                        position += 3;
-                    }
-                }
-                case 6 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    if (firstParameter == 0) {
-                        position = secondParameter;
-                    } else {
-                        position += 3;
-                    }
-                }
-                case 7 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    program[program[position + 3]] = firstParameter < secondParameter ? 1 : 0;
-                    position += 4;
-                }
-                case 8 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    program[program[position + 3]] = firstParameter == secondParameter ? 1 : 0;
-                    position += 4;
-                }
-                default -> throw new IllegalStateException("unknown opcode: " + opcode);
-            }
-            counter++;
-        }
-        System.out.println("counter = " + counter);
+/**
+ * Reads the input from the console and prints the output.
+ */
+class IntcodeConsoleIO implements IntcodeIO {
+    private final Scanner scanner = new Scanner(System.in);
+
+    @Override
+    public boolean hasInput() {
+        return true;
+    }
+
+    @Override
+    public long readInput() {
+        return scanner.nextLong();
     }
 
-    private int getOpcode(int position) {
-        return program[position] % 100;
+    @Override
+    public void writeOutput(long value) {
+        System.out.println(value);
     }
 
-    private int getParameter(int positionInstruction, int index) {
-        int instruction = program[positionInstruction];
-        int mode = (instruction / (10 * (int) Math.pow(10, index))) % 10;
-        return mode == MODE_IMMEDIATE ? program[positionInstruction + index] : program[program[positionInstruction + index]];
+    @Override
+    public IntcodeIO fork() {
+        // there is only one console
+        return this;
     }
 }
 
@@ -115,11 +52,14 @@ public class Day_05 {
 
         // part 1
         System.out.println("\npart 1: ");
-        int[] intCodeProgram = Arrays.stream(input.split(","))
-                .mapToInt(Integer::valueOf)
+        long[] intCodeProgram = Arrays.stream(input.split(","))
+                .mapToLong(Long::valueOf)
                 .toArray();
 
-        IntcodeV2 intcode = new IntcodeV2(intCodeProgram);
+        IntcodeComputer intcode = new IntcodeComputer.IntcodeComputerBuilder()
+                .program(intCodeProgram)
+                .io(new IntcodeConsoleIO())
+                .build();
         intcode.run();
         System.out.println();
 
@@ -1,19 +1,22 @@
 package nl.krudde;
 
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
 
-import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
 
 public class Day_06 {
@@ -21,9 +24,6 @@ public class Day_06 {
     final static String DEFAULT_FILENAME = new Object() {
     }.getClass().getEnclosingClass().getSimpleName().toLowerCase().replace("_0", "_") + ".txt";
 
-    static Map<String, String> mapOrbits = new HashMap<>();
-    static Map<String, Integer> countOrbits = new HashMap<>();
-
     public static void main(String[] args) throws IOException {
         List<String> input = readFile(args);
 
@@ -31,11 +31,9 @@ public class Day_06 {
         LocalTime start = LocalTime.now();
         System.out.println("\npart 1: ");
 
-        input.forEach(Day_06::processOrbitRelation);
+        OrbitTree orbitTree = new OrbitTree(input);
 
-        int count = mapOrbits.keySet().stream()
-                .mapToInt(orbit -> countOrbits(orbit, 0))
-                .sum();
+        long count = orbitTree.totalOrbits();
         System.out.println("count = " + count);
 
         LocalTime finish = LocalTime.now();
@@ -45,69 +43,375 @@ public class Day_06 {
         start = LocalTime.now();
         System.out.println("\npart 2: ");
 
-        List<String> myParents = getParents("YOU");
-        List<String> santaParents = getParents("SAN");
-        //find unique elements and correct (-2) for ourselves (YOU/SAN)
-        long transfers = Stream.concat(myParents.stream(), santaParents.stream())
-                .collect(groupingBy(Function.identity(), Collectors.counting()))
-                .entrySet()
-                .stream()
-                .filter(e -> e.getValue() == 1)
-                .map(Map.Entry::getKey)
-                .count() - 2;
+        int transfers = orbitTree.transfers("YOU", "SAN");
         System.out.println("transfers = " + transfers);
 
         finish = LocalTime.now();
         System.out.println("duration (ms): " + Duration.between(start, finish).toMillis());
     }
 
-    private static List<String> getParents(String orbit) {
-        if (!mapOrbits.containsKey(orbit)) {
-            return List.of(orbit);
+    private static List<String> readFile(String[] args) throws IOException {
+        String fileName;
+        if (args.length == 0) {
+            fileName = DEFAULT_FILENAME;
         } else {
-            List<String> l = new ArrayList<>(getParents(mapOrbits.get(orbit)));
-            l.add(orbit);
-            return l;
+            fileName = args[0];
         }
+
+        System.out.println("reading file: " + fileName);
+        // get the input lines
+        List<String> input = Files.lines(Path.of(fileName)).collect(toList());
+        System.out.println(String.format("read file: %s (#lines: %d)", fileName, input.size()));
+
+        return input;
     }
+}
+
+/**
+ * Bodies and what they orbit, as a tree on int ids: the names are interned once, after that everything is arrays.
+ * <p>
+ * The depths (the number of direct and indirect orbits of a body) are calculated in one pass from the centers outwards,
+ * without recursion, so long chains of orbits do not overflow the stack.
+ * For distances between bodies every body has a binary lifting table of its ancestors 1, 2, 4, ... levels up,
+ * so the lowest common ancestor of 2 bodies is found in O(log n).
+ * <p>
+ * Relations can be added after building the tree: only the body which starts orbiting and its satellites are updated.
+ * Queries may run in parallel with each other, adding a relation waits for them.
+ */
+class OrbitTree {
+    private static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // per body, arrays are grown ahead of the number of bodies
+    private int[] parents;
+    private int[] depths;
+    // satellites of a body as a linked list: the first one, then each satellite links to the next one of the same body
+    private int[] firstSatellites;
+    private int[] nextSatellites;
+    // ancestors[k][body] is the ancestor 2^k levels up, or the center of its tree when that is closer
+    private int[][] ancestors;
+
+    private int maxDepth;
+    private long totalOrbits;
 
-    private static int countOrbits(String orbit, int depth) {
-        if (countOrbits.containsKey(orbit)) {
-            return depth + countOrbits.get(orbit);
+    /**
+     * @param relations orbits as "A)B": B orbits A
+     */
+    OrbitTree(List<String> relations) {
+        allocate(Math.max(INITIAL_CAPACITY, relations.size() + 1));
+        for (String relation : relations) {
+            String[] bodies = parseOrbitRelation(relation);
+            link(intern(bodies[0]), intern(bodies[1]));
         }
 
-        if (!mapOrbits.containsKey(orbit)) {
-            return depth;
-        } else {
-            int count = countOrbits(mapOrbits.get(orbit), depth + 1);
-            countOrbits.put(orbit, count - depth);
-            return count;
+        calculateDepths();
+        calculateAncestors();
+    }
+
+    int nrBodies() {
+        return names.size();
+    }
+
+    /**
+     * @return the total number of direct and indirect orbits
+     */
+    long totalOrbits() {
+        lock.readLock().lock();
+        try {
+            return totalOrbits;
+        } finally {
+            lock.readLock().unlock();
         }
     }
 
-    private static void processOrbitRelation(String line) {
-        String orbitLeft = line.split("[)]")[0];
-        String orbitRight = line.split("[)]")[1];
-        if (!mapOrbits.containsKey(orbitRight)) {
-            mapOrbits.put(orbitRight, orbitLeft);
-        } else {
-            throw new IllegalStateException("misorbit");
+    /**
+     * @return the number of orbital transfers to move from the body the source orbits to the body the destination orbits
+     */
+    int transfers(String source, String destination) {
+        lock.readLock().lock();
+        try {
+            int sourceParent = parents[id(source)];
+            int destinationParent = parents[id(destination)];
+            if (sourceParent == NONE || destinationParent == NONE) {
+                throw new IllegalStateException("not orbiting anything: " + (sourceParent == NONE ? source : destination));
+            }
+            return distance(sourceParent, destinationParent);
+        } finally {
+            lock.readLock().unlock();
         }
     }
 
-    private static List<String> readFile(String[] args) throws IOException {
-        String fileName;
-        if (args.length == 0) {
-            fileName = DEFAULT_FILENAME;
-        } else {
-            fileName = args[0];
+    /**
+     * @return the number of orbital transfers between the bodies
+     */
+    int distance(String body1, String body2) {
+        lock.readLock().lock();
+        try {
+            return distance(id(body1), id(body2));
+        } finally {
+            lock.readLock().unlock();
         }
+    }
 
-        System.out.println("reading file: " + fileName);
-        // get the input lines
-        List<String> input = Files.lines(Path.of(fileName)).collect(toList());
-        System.out.println(String.format("read file: %s (#lines: %d)", fileName, input.size()));
+    /**
+     * Answer many distance queries at once, in parallel.
+     *
+     * @return the number of orbital transfers between the bodies of each query, in the order of the queries
+     */
+    int[] distances(List<OrbitQuery> queries) {
+        lock.readLock().lock();
+        try {
+            // look up the ids first, so an unknown body fails before any work is done
+            int[] sources = queries.stream().mapToInt(query -> id(query.getSource())).toArray();
+            int[] destinations = queries.stream().mapToInt(query -> id(query.getDestination())).toArray();
+            return IntStream.range(0, queries.size()).parallel()
+                    .map(i -> distance(sources[i], destinations[i]))
+                    .toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
 
-        return input;
+    /**
+     * Add a relation "A)B" to the tree without rebuilding it.
+     * B may be new, or the center of a tree so far, which then moves with all its satellites.
+     */
+    void addOrbitRelation(String relation) {
+        lock.writeLock().lock();
+        try {
+            // validate before interning, so a rejected relation leaves the tree as it was
+            String[] bodies = parseOrbitRelation(relation);
+            Integer center = ids.get(bodies[0]);
+            Integer satellite = ids.get(bodies[1]);
+            if (bodies[0].equals(bodies[1]) || (center != null && satellite != null && isAncestor(satellite, center))) {
+                throw new IllegalStateException("orbits in a cycle: " + relation);
+            }
+            int satelliteId = intern(bodies[1]);
+            link(intern(bodies[0]), satelliteId);
+            updateSubtree(satelliteId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int distance(int body1, int body2) {
+        return depths[body1] + depths[body2] - 2 * depths[lowestCommonAncestor(body1, body2)];
+    }
+
+    private int lowestCommonAncestor(int body1, int body2) {
+        // first lift the deeper body to the depth of the other one
+        if (depths[body1] < depths[body2]) {
+            int swap = body1;
+            body1 = body2;
+            body2 = swap;
+        }
+        body1 = ancestorUp(body1, depths[body1] - depths[body2]);
+        if (body1 == body2) {
+            return body1;
+        }
+
+        // then lift both as far as their ancestors differ, the parent of where they end is the common ancestor
+        for (int k = ancestors.length - 1; k >= 0; k--) {
+            if (ancestors[k][body1] != ancestors[k][body2]) {
+                body1 = ancestors[k][body1];
+                body2 = ancestors[k][body2];
+            }
+        }
+        if (parents[body1] == NONE || parents[body1] != parents[body2]) {
+            throw new IllegalStateException("no common orbit: " + names.get(body1) + ", " + names.get(body2));
+        }
+        return parents[body1];
     }
+
+    private int ancestorUp(int body, int levels) {
+        for (int k = 0; levels > 0; k++, levels >>= 1) {
+            if ((levels & 1) == 1) {
+                body = ancestors[k][body];
+            }
+        }
+        return body;
+    }
+
+    private boolean isAncestor(int ancestor, int body) {
+        return depths[ancestor] <= depths[body] && ancestorUp(body, depths[body] - depths[ancestor]) == ancestor;
+    }
+
+    private int id(String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            throw new IllegalStateException("unknown body: " + name);
+        }
+        return id;
+    }
+
+    private int intern(String name) {
+        return ids.computeIfAbsent(name, newName -> {
+            names.add(newName);
+            int body = names.size() - 1;
+            if (body == parents.length) {
+                allocate(2 * parents.length);
+            }
+            // a new body is the center of its own tree
+            parents[body] = NONE;
+            firstSatellites[body] = NONE;
+            nextSatellites[body] = NONE;
+            depths[body] = 0;
+            for (int[] ancestorsUp : ancestors) {
+                ancestorsUp[body] = body;
+            }
+            return body;
+        });
+    }
+
+    /**
+     * Check the relation without interning its bodies.
+     *
+     * @return the names of the center and the satellite
+     */
+    private String[] parseOrbitRelation(String line) {
+        int separator = line.indexOf(')');
+        if (separator < 0) {
+            throw new IllegalStateException("no orbit relation: " + line);
+        }
+        String[] bodies = {line.substring(0, separator), line.substring(separator + 1)};
+        Integer satellite = ids.get(bodies[1]);
+        if (satellite != null && parents[satellite] != NONE) {
+            throw new IllegalStateException("misorbit: " + line + ", " + bodies[1] + " already orbits " + names.get(parents[satellite]));
+        }
+        return bodies;
+    }
+
+    private void link(int center, int satellite) {
+        parents[satellite] = center;
+        nextSatellites[satellite] = firstSatellites[center];
+        firstSatellites[center] = satellite;
+    }
+
+    private void allocate(int capacity) {
+        int oldCapacity = parents == null ? 0 : parents.length;
+        parents = grow(parents, capacity);
+        depths = grow(depths, capacity);
+        firstSatellites = grow(firstSatellites, capacity);
+        nextSatellites = grow(nextSatellites, capacity);
+        if (ancestors == null) {
+            ancestors = new int[1][];
+        }
+        for (int k = 0; k < ancestors.length; k++) {
+            ancestors[k] = grow(ancestors[k], capacity);
+        }
+    }
+
+    private static int[] grow(int[] array, int capacity) {
+        return array == null ? new int[capacity] : Arrays.copyOf(array, capacity);
+    }
+
+    /**
+     * Depths from the centers outwards, in breadth first order over the satellites.
+     */
+    private void calculateDepths() {
+        int nrBodies = nrBodies();
+        int[] queue = new int[nrBodies];
+        int tail = 0;
+        for (int body = 0; body < nrBodies; body++) {
+            if (parents[body] == NONE) {
+                depths[body] = 0;
+                queue[tail++] = body;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int body = queue[head];
+            for (int satellite = firstSatellites[body]; satellite != NONE; satellite = nextSatellites[satellite]) {
+                depths[satellite] = depths[body] + 1;
+                queue[tail++] = satellite;
+            }
+        }
+        if (tail < nrBodies) {
+            // bodies in a cycle are never reached from a center
+            throw new IllegalStateException("orbits in a cycle: " + (nrBodies - tail) + " bodies");
+        }
+
+        maxDepth = 0;
+        totalOrbits = 0;
+        for (int body = 0; body < nrBodies; body++) {
+            maxDepth = Math.max(maxDepth, depths[body]);
+            totalOrbits += depths[body];
+        }
+    }
+
+    private void calculateAncestors() {
+        int nrBodies = nrBodies();
+        ancestors = new int[nrLevels(maxDepth)][parents.length];
+        for (int body = 0; body < nrBodies; body++) {
+            ancestors[0][body] = parents[body] == NONE ? body : parents[body];
+        }
+        for (int k = 1; k < ancestors.length; k++) {
+            calculateAncestorLevel(k);
+        }
+    }
+
+    private void calculateAncestorLevel(int k) {
+        for (int body = 0; body < nrBodies(); body++) {
+            ancestors[k][body] = ancestors[k - 1][ancestors[k - 1][body]];
+        }
+    }
+
+    private static int nrLevels(int maxDepth) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(maxDepth));
+    }
+
+    /**
+     * The body got a new center: update the depths and ancestors of it and its satellites, in breadth first order
+     * so the ancestors of a body are up to date before the body itself.
+     */
+    private void updateSubtree(int root) {
+        int depthChange = depths[parents[root]] + 1 - depths[root];
+        int[] queue = new int[INITIAL_CAPACITY];
+        queue[0] = root;
+        int tail = 1;
+        for (int head = 0; head < tail; head++) {
+            int body = queue[head];
+            depths[body] += depthChange;
+            totalOrbits += depthChange;
+            for (int satellite = firstSatellites[body]; satellite != NONE; satellite = nextSatellites[satellite]) {
+                if (tail == queue.length) {
+                    queue = Arrays.copyOf(queue, 2 * queue.length);
+                }
+                queue[tail++] = satellite;
+            }
+        }
+
+        int newMaxDepth = maxDepth;
+        for (int i = 0; i < tail; i++) {
+            newMaxDepth = Math.max(newMaxDepth, depths[queue[i]]);
+        }
+        if (nrLevels(newMaxDepth) > ancestors.length) {
+            // deeper than the table reaches: add the levels for all bodies, the moved ones are corrected below
+            int oldNrLevels = ancestors.length;
+            ancestors = Arrays.copyOf(ancestors, nrLevels(newMaxDepth));
+            for (int k = oldNrLevels; k < ancestors.length; k++) {
+                ancestors[k] = new int[parents.length];
+                calculateAncestorLevel(k);
+            }
+        }
+        maxDepth = newMaxDepth;
+
+        for (int i = 0; i < tail; i++) {
+            int body = queue[i];
+            ancestors[0][body] = parents[body];
+            for (int k = 1; k < ancestors.length; k++) {
+                ancestors[k][body] = ancestors[k - 1][ancestors[k - 1][body]];
+            }
+        }
+    }
+}
+
+@Data
+@AllArgsConstructor
+class OrbitQuery {
+    private final String source;
+    private final String destination;
 }
@@ -1,132 +1,16 @@
 package nl.krudde;
 
-import lombok.Builder;
-import lombok.Data;
-
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalTime;
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
 import java.util.stream.IntStream;
 
 import static java.util.stream.Collectors.toList;
 
-@Data
-@Builder
-class IntcodeV3 {
-    final private int MODE_POSITION = 0;
-    final private int MODE_IMMEDIATE = 1;
-
-    private int[] program;
-    private int position;
-
-    @Builder.Default
-    private Queue<Integer> input = new LinkedList<>();
-    @Builder.Default
-    private Queue<Integer> output = new LinkedList<>();
-    @Builder.Default
-    private boolean halted = false;
-    @Builder.Default
-    private boolean initialised = false;
-
-    public void addInput(Integer input) {
-        this.input.add(input);
-    }
-
-    public int getOutput() {
-        return output.remove();
-    }
-
-    public void run() {
-        int opcode;
-        int firstParameter, secondParameter;
-        boolean waitingForInput = false;
-
-        if (!initialised) {
-            program = program.clone();
-            initialised = true;
-        }
-
-        while (!halted && !waitingForInput) {
-            opcode = getOpcode(position);
-            switch (opcode) {
-                case 1 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    program[program[position + 3]] = firstParameter + secondParameter;
-                    position += 4;
-                }
-                case 2 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    program[program[position + 3]] = firstParameter * secondParameter;
-                    position += 4;
-                }
-                case 3 -> {
-                    if (input.peek() == null) {
-                        waitingForInput = true;
-                    } else {
-                        program[program[position + 1]] = input.remove();
-                        position += 2;
-                    }
-                }
-                case 4 -> {
-                    firstParameter = getParameter(position, 1);
-                    output.add(firstParameter);
-                    position += 2;
-                }
-                case 5 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    if (firstParameter != 0) {
-                        position = secondParameter;
-                    } else {
-                        position += 3;
-                    }
-                }
-                case 6 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    if (firstParameter == 0) {
-                        position = secondParameter;
-                    } else {
-                        position += 3;
-                    }
-                }
-                case 7 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    program[program[position + 3]] = firstParameter < secondParameter ? 1 : 0;
-                    position += 4;
-                }
-                case 8 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    program[program[position + 3]] = firstParameter == secondParameter ? 1 : 0;
-                    position += 4;
-                }
-                default -> throw new IllegalStateException("unknown opcode: " + opcode);
-            }
-            halted = program[position] == 99;
-        }
-    }
-
-    private int getOpcode(int position) {
-        return program[position] % 100;
-    }
-
-    private int getParameter(int positionInstruction, int index) {
-        int instruction = program[positionInstruction];
-        int mode = (instruction / (10 * (int) Math.pow(10, index))) % 10;
-        return mode == MODE_IMMEDIATE ? program[positionInstruction + index] : program[program[positionInstruction + index]];
-    }
-}
-
 public class Day_07 {
 
     final static String DEFAULT_FILENAME = new Object() {
@@ -141,17 +25,12 @@ public class Day_07 {
 
         // part 1
         System.out.println("\npart 1: ");
-        int[] intCodeProgram = Arrays.stream(input.split(","))
-                .mapToInt(Integer::valueOf)
+        long[] intCodeProgram = Arrays.stream(input.split(","))
+                .mapToLong(Long::valueOf)
                 .toArray();
+        IntcodeComputer[] bootedAmplifiers = bootAmplifiers(intCodeProgram);
 
-        long maxThrusterSignal = IntStream.rangeClosed(0, 44444)
-                .parallel()
-                .filter(Day_07::hasOnlyDistinctDigits)
-                .filter(Day_07::containsOnlyDigitsLowerThan5)
-                .mapToLong(i -> determineThrusterSignal(intCodeProgram, calculatePhaseAmplifiers(i)))
-                .max()
-                .orElseThrow(() -> new IllegalStateException("no value"));
+        long maxThrusterSignal = maxThrusterSignal(bootedAmplifiers);
 
         System.out.println("maxThrusterSignal = " + maxThrusterSignal);
 
@@ -162,13 +41,7 @@ public class Day_07 {
         start = LocalTime.now();
         System.out.println("\npart 2: ");
 
-        maxThrusterSignal = IntStream.rangeClosed(55555, 99999)
-                .parallel()
-                .filter(Day_07::hasOnlyDistinctDigits)
-                .filter(Day_07::containsOnlyDigitsGreaterOrEqualThan5)
-                .mapToLong(i -> determineThrusterSignalWithFeedback(intCodeProgram, calculatePhaseAmplifiers(i)))
-                .max()
-                .orElseThrow(() -> new IllegalStateException("no value"));
+        maxThrusterSignal = maxThrusterSignalWithFeedback(bootedAmplifiers);
 
         System.out.println("maxThrusterSignal = " + maxThrusterSignal);
 
@@ -176,6 +49,32 @@ public class Day_07 {
         System.out.println("duration (ms): " + Duration.between(start, finish).toMillis());
     }
 
+    /**
+     * @return the highest signal of the amplifiers in series over all permutations of the phases 0..4
+     */
+    static long maxThrusterSignal(IntcodeComputer[] bootedAmplifiers) {
+        return IntStream.rangeClosed(0, 44444)
+                .parallel()
+                .filter(Day_07::hasOnlyDistinctDigits)
+                .filter(Day_07::containsOnlyDigitsLowerThan5)
+                .mapToLong(i -> determineThrusterSignal(bootedAmplifiers, calculatePhaseAmplifiers(i)))
+                .max()
+                .orElseThrow(() -> new IllegalStateException("no value"));
+    }
+
+    /**
+     * @return the highest signal of the amplifiers in a feedback loop over all permutations of the phases 5..9
+     */
+    static long maxThrusterSignalWithFeedback(IntcodeComputer[] bootedAmplifiers) {
+        return IntStream.rangeClosed(55555, 99999)
+                .parallel()
+                .filter(Day_07::hasOnlyDistinctDigits)
+                .filter(Day_07::containsOnlyDigitsGreaterOrEqualThan5)
+                .mapToLong(i -> determineThrusterSignalWithFeedback(bootedAmplifiers, calculatePhaseAmplifiers(i)))
+                .max()
+                .orElseThrow(() -> new IllegalStateException("no value"));
+    }
+
     private static int[] calculatePhaseAmplifiers(int i) {
         int[] amplifierPhases = new int[NR_AMPLIFIERS];
         for (int j = 0; j < NR_AMPLIFIERS; j++) {
@@ -184,13 +83,27 @@ public class Day_07 {
         return amplifierPhases;
     }
 
-    private static long determineThrusterSignal(int[] program, int[] amplifierPhases) {
-        int amplifierOutputSignal = 0;
-        for (int amplifier = 0; amplifier < NR_AMPLIFIERS; amplifier++) {
-            IntcodeV3 intcode = new IntcodeV3.IntcodeV3Builder()
+    static IntcodeComputer[] bootAmplifiers(long[] program) {
+        // boot an amplifier for every phase setting once, the permutations fork these
+        // all of them share one image, so the program is decoded and compiled once
+        IntcodeImage image = new IntcodeImage(program);
+        IntcodeComputer[] bootedAmplifiers = new IntcodeComputer[10];
+        for (int phase = 0; phase < bootedAmplifiers.length; phase++) {
+            bootedAmplifiers[phase] = new IntcodeComputer.IntcodeComputerBuilder()
                     .program(program)
+                    .image(image)
+                    .compiled(true)
                     .build();
-            intcode.addInput(amplifierPhases[amplifier]);
+            bootedAmplifiers[phase].addInput(phase);
+            bootedAmplifiers[phase].run();
+        }
+        return bootedAmplifiers;
+    }
+
+    private static long determineThrusterSignal(IntcodeComputer[] bootedAmplifiers, int[] amplifierPhases) {
+        long amplifierOutputSignal = 0;
+        for (int amplifier = 0; amplifier < NR_AMPLIFIERS; amplifier++) {
+            IntcodeComputer intcode = bootedAmplifiers[amplifierPhases[amplifier]].fork();
             intcode.addInput(amplifierOutputSignal);
             intcode.run();
             amplifierOutputSignal = intcode.getOutput();
@@ -198,16 +111,13 @@ public class Day_07 {
         return amplifierOutputSignal;
     }
 
-    private static long determineThrusterSignalWithFeedback(int[] program, int[] amplifierPhases) {
-        int amplifierOutputSignal = 0;
+    private static long determineThrusterSignalWithFeedback(IntcodeComputer[] bootedAmplifiers, int[] amplifierPhases) {
+        long amplifierOutputSignal = 0;
 
         // create the amplifier programs
-        IntcodeV3[] amplifierPrograms = new IntcodeV3[NR_AMPLIFIERS];
+        IntcodeComputer[] amplifierPrograms = new IntcodeComputer[NR_AMPLIFIERS];
         for (int amplifier = 0; amplifier < NR_AMPLIFIERS; amplifier++) {
-            amplifierPrograms[amplifier] = new IntcodeV3.IntcodeV3Builder()
-                    .program(program)
-                    .build();
-            amplifierPrograms[amplifier].addInput(amplifierPhases[amplifier]);
+            amplifierPrograms[amplifier] = bootedAmplifiers[amplifierPhases[amplifier]].fork();
         }
 
         // run until the last program has halted
@@ -1,108 +1,328 @@
 package nl.krudde;
 
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.LocalTime;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.IntStream;
 
-import static java.util.Comparator.comparingLong;
 import static java.util.stream.Collectors.toList;
 
-@Data
+/**
+ * Image in the Space Image Format: layers of digits, stored as the digit values after each other in a single byte array.
+ * Layers are views on that array, so counting and decoding walk the pixels in memory order.
+ */
 class Image {
-    int TRANSPARENT = 2;
+    static final byte TRANSPARENT = 2;
 
-    private final List<Layer> layers = new ArrayList<>();
+    // layer i starts at i * pixelsPerLayer
+    private final byte[] pixels;
+    @Getter
+    private final int pixelsPerLayer;
+    @Getter
+    private final int nrLayers;
 
-    static Image of(String pixels, int pixelsPerLayer) {
-        Image image = new Image();
-        int nrLayers = pixels.length() / pixelsPerLayer;
-        IntStream.range(0, nrLayers)
-                .forEach(i -> {
-                    Layer layer = new Layer();
-                    pixels.substring(i * pixelsPerLayer, (i + 1) * pixelsPerLayer)
-                            .chars()
-                            .map(Character::getNumericValue)
-                            .forEach(pixel -> layer.getPixels().add(pixel));
-                    image.getLayers().add(layer);
-                });
-        return image;
+    private Image(byte[] pixels, int pixelsPerLayer) {
+        this.pixels = pixels;
+        this.pixelsPerLayer = pixelsPerLayer;
+        this.nrLayers = pixels.length / pixelsPerLayer;
+    }
+
+    /**
+     * @param pixels the digit values of the layers after each other, not copied
+     */
+    static Image ofPixels(byte[] pixels, int pixelsPerLayer) {
+        return new Image(pixels, pixelsPerLayer);
+    }
+
+    /**
+     * @param digits the digits of the layers after each other, digits after the last complete layer are ignored
+     */
+    static Image of(String digits, int pixelsPerLayer) {
+        byte[] pixels = new byte[digits.length() / pixelsPerLayer * pixelsPerLayer];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = toPixel(digits.charAt(i));
+        }
+        return new Image(pixels, pixelsPerLayer);
+    }
+
+    static byte toPixel(int digit) {
+        if (digit < '0' || digit > '9') {
+            throw new IllegalStateException("not a digit: " + (char) digit);
+        }
+        return (byte) (digit - '0');
+    }
+
+    Layer getLayer(int layer) {
+        return new Layer(pixels, layer * pixelsPerLayer, pixelsPerLayer);
+    }
+
+    List<Layer> getLayers() {
+        return IntStream.range(0, nrLayers)
+                .mapToObj(this::getLayer)
+                .collect(toList());
     }
 
     Layer getLayerWithLowestNumberOfZeros() {
-        return layers.parallelStream()
-                .min(comparingLong(Layer::numberOfZeros))
-                .orElseThrow(() -> new IllegalStateException("no value"));
+        Layer lowest = null;
+        for (int i = 0; i < nrLayers; i++) {
+            Layer layer = getLayer(i);
+            if (lowest == null || layer.histogram().numberOfZeros() < lowest.histogram().numberOfZeros()) {
+                lowest = layer;
+            }
+        }
+        if (lowest == null) {
+            throw new IllegalStateException("no value");
+        }
+        return lowest;
     }
 
+    /**
+     * @return an image of 1 layer with per pixel the first pixel of the layers which is not transparent
+     */
     Image decodeImage() {
-        Image newImage = new Image();
-        Layer newLayer = new Layer();
-
-        newLayer.getPixels().addAll(
-                IntStream.range(0, layers.get(0).getPixels().size())
-                        .mapToObj(position -> layers.stream()
-                                .map(layer -> layer.getPixels().get(position))
-                                .filter(pixel -> pixel != TRANSPARENT)
-                                .findFirst()
-                                .orElseThrow(() -> new IllegalStateException("no value"))
-                        )
-                        .collect(toList()));
-        newImage.getLayers().add(newLayer);
-        return newImage;
+        byte[] decoded = new byte[pixelsPerLayer];
+        Arrays.fill(decoded, TRANSPARENT);
+        int nrTransparent = pixelsPerLayer;
+        // layers in memory order, until no transparent pixel is left
+        for (int offset = 0; offset < pixels.length && nrTransparent > 0; offset += pixelsPerLayer) {
+            for (int i = 0; i < pixelsPerLayer; i++) {
+                if (decoded[i] == TRANSPARENT && pixels[offset + i] != TRANSPARENT) {
+                    decoded[i] = pixels[offset + i];
+                    nrTransparent--;
+                }
+            }
+        }
+        if (nrTransparent > 0) {
+            throw new IllegalStateException("no value");
+        }
+        return new Image(decoded, pixelsPerLayer);
     }
 }
 
-@Data
-@AllArgsConstructor
+/**
+ * A layer of an {@link Image}: a range of its pixels.
+ */
 class Layer {
-    private final List<Integer> pixels = new ArrayList<>();
+    private final byte[] pixels;
+    private final int offset;
+    @Getter
+    private final int size;
+    // counted on first use
+    private DigitHistogram histogram;
+
+    Layer(byte[] pixels, int offset, int size) {
+        this.pixels = pixels;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    int getPixel(int i) {
+        return pixels[offset + i];
+    }
+
+    /**
+     * @return the number of pixels per digit, counted in one pass
+     */
+    DigitHistogram histogram() {
+        if (histogram == null) {
+            int[] counts = new int[DigitHistogram.NR_DIGITS];
+            for (int i = offset; i < offset + size; i++) {
+                counts[pixels[i]]++;
+            }
+            histogram = new DigitHistogram(counts);
+        }
+        return histogram;
+    }
+}
+
+/**
+ * Number of pixels per digit of a layer.
+ */
+class DigitHistogram {
+    static final int NR_DIGITS = 10;
+
+    private final int[] counts;
+
+    /**
+     * @param counts per digit the number of pixels, copied
+     */
+    DigitHistogram(int[] counts) {
+        if (counts.length != NR_DIGITS) {
+            throw new IllegalStateException("expected " + NR_DIGITS + " counts: " + Arrays.toString(counts));
+        }
+        this.counts = counts.clone();
+    }
+
+    long count(int digit) {
+        return counts[digit];
+    }
 
     long numberOfZeros() {
-        return nrDigits(0);
+        return counts[0];
     }
 
     long numberOfOnes() {
-        return nrDigits(1);
+        return counts[1];
     }
 
     long numberOfTwos() {
-        return nrDigits(2);
+        return counts[2];
+    }
+}
+
+/**
+ * Decodes a Space Image Format file while reading it, for files with any number of layers.
+ * <p>
+ * The file is memory mapped in regions and read in chunks, so memory stays constant: only the decoded layer (the first
+ * pixel which is not transparent so far) and the histogram of the current layer are kept.
+ * The statistics of every layer are reported as soon as the layer is complete.
+ */
+class SpaceImageDecoder {
+    // regions of the file are mapped one at a time
+    private static final long MAP_SIZE = 1L << 26;
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final int pixelsPerLayer;
+    private final Consumer<LayerStatistics> layerStatisticsConsumer;
+
+    private final byte[] decoded;
+    // pixels of the decoded image which are still transparent
+    private int nrTransparent;
+    private final int[] histogram = new int[DigitHistogram.NR_DIGITS];
+    // position of the next pixel in its layer
+    private int position = 0;
+    @Getter
+    private int nrLayers = 0;
+    @Getter
+    private LayerStatistics layerWithLowestNumberOfZeros;
+
+    SpaceImageDecoder(int pixelsPerLayer) {
+        this(pixelsPerLayer, layerStatistics -> {
+        });
+    }
+
+    SpaceImageDecoder(int pixelsPerLayer, Consumer<LayerStatistics> layerStatisticsConsumer) {
+        this.pixelsPerLayer = pixelsPerLayer;
+        this.layerStatisticsConsumer = layerStatisticsConsumer;
+        decoded = new byte[pixelsPerLayer];
+        Arrays.fill(decoded, Image.TRANSPARENT);
+        nrTransparent = pixelsPerLayer;
+    }
+
+    /**
+     * Decode the digits in the file, line breaks are skipped.
+     */
+    SpaceImageDecoder decode(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            byte[] chunk = new byte[CHUNK_SIZE];
+            for (long regionStart = 0; regionStart < size; regionStart += MAP_SIZE) {
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, Math.min(MAP_SIZE, size - regionStart));
+                while (region.hasRemaining()) {
+                    int length = Math.min(chunk.length, region.remaining());
+                    region.get(chunk, 0, length);
+                    accept(chunk, length);
+                }
+            }
+        }
+        if (position != 0) {
+            throw new IllegalStateException("incomplete last layer: " + position + " of " + pixelsPerLayer + " pixels");
+        }
+        return this;
+    }
+
+    /**
+     * Decode the next digits, as characters.
+     */
+    void accept(byte[] digits, int length) {
+        for (int i = 0; i < length; i++) {
+            byte digit = digits[i];
+            if (digit == '\n' || digit == '\r') {
+                continue;
+            }
+            byte pixel = Image.toPixel(digit);
+            histogram[pixel]++;
+            if (decoded[position] == Image.TRANSPARENT && pixel != Image.TRANSPARENT) {
+                decoded[position] = pixel;
+                nrTransparent--;
+            }
+            if (++position == pixelsPerLayer) {
+                completeLayer();
+            }
+        }
     }
 
-    private long nrDigits(int digit) {
-        return pixels.stream()
-                .filter(pixel -> pixel == digit)
-                .count();
+    /**
+     * @return the decoded image so far, with per pixel the first pixel of the layers which is not transparent
+     */
+    Image getDecodedImage() {
+        if (nrTransparent > 0) {
+            throw new IllegalStateException("no value");
+        }
+        return Image.ofPixels(decoded.clone(), pixelsPerLayer);
+    }
+
+    private void completeLayer() {
+        LayerStatistics layerStatistics = new LayerStatistics(nrLayers, new DigitHistogram(histogram));
+        if (layerWithLowestNumberOfZeros == null
+                || layerStatistics.getHistogram().numberOfZeros() < layerWithLowestNumberOfZeros.getHistogram().numberOfZeros()) {
+            layerWithLowestNumberOfZeros = layerStatistics;
+        }
+        layerStatisticsConsumer.accept(layerStatistics);
+
+        nrLayers++;
+        position = 0;
+        Arrays.fill(histogram, 0);
     }
 }
 
+/**
+ * Statistics of a layer, reported by the {@link SpaceImageDecoder} when the layer is complete.
+ */
+@Getter
+@AllArgsConstructor
+class LayerStatistics {
+    // index of the layer in the file
+    private final int layer;
+    private final DigitHistogram histogram;
+}
+
 public class Day_08 {
 
     final static String DEFAULT_FILENAME = new Object() {
     }.getClass().getEnclosingClass().getSimpleName().toLowerCase().replace("_0", "_") + ".txt";
 
     public static void main(String[] args) throws IOException {
-        List<String> input = readFile(args);
+        String fileName = args.length == 0 ? DEFAULT_FILENAME : args[0];
+        int WIDE = 25;
+        int TALL = 6;
 
-        // part 1
+        // decode while reading the file, part 1 uses the statistics of the layers and part 2 the decoded image
         LocalTime start = LocalTime.now();
-        System.out.println("\npart 1: ");
+        System.out.println("reading file: " + fileName);
+        SpaceImageDecoder decoder = new SpaceImageDecoder(WIDE * TALL).decode(Path.of(fileName));
+        System.out.println(String.format("read file: %s (#layers: %d)", fileName, decoder.getNrLayers()));
 
-        int WIDE = 25;
-        int TALL = 6;
+        // part 1
+        System.out.println("\npart 1: ");
 
-        Image encodedImage = Image.of(input.get(0), WIDE * TALL);
-        Layer layerWithLowestNumberOfZeros = encodedImage.getLayerWithLowestNumberOfZeros();
+        LayerStatistics layerWithLowestNumberOfZeros = decoder.getLayerWithLowestNumberOfZeros();
+        if (layerWithLowestNumberOfZeros == null) {
+            throw new IllegalStateException("no value");
+        }
 
-        long multiplyNrOnesAndNrTwosForLayer = layerWithLowestNumberOfZeros.numberOfOnes() * layerWithLowestNumberOfZeros.numberOfTwos();
+        DigitHistogram histogram = layerWithLowestNumberOfZeros.getHistogram();
+        long multiplyNrOnesAndNrTwosForLayer = histogram.numberOfOnes() * histogram.numberOfTwos();
         System.out.println("multiplyNrOnesAndNrTwosForLayer = " + multiplyNrOnesAndNrTwosForLayer);
 
         LocalTime finish = LocalTime.now();
@@ -112,14 +332,14 @@ public class Day_08 {
         start = LocalTime.now();
         System.out.println("\npart 2: ");
 
-        Image decodedImage = encodedImage.decodeImage();
+        Image decodedImage = decoder.getDecodedImage();
         Layer layer = decodedImage.getLayers().get(0);
         // print the image/message
-        for (int i = 0; i < layer.getPixels().size(); i++) {
+        for (int i = 0; i < layer.getSize(); i++) {
             if (i % WIDE == 0) {
                 System.out.println();
             }
-            if (layer.getPixels().get(i) == 0) {
+            if (layer.getPixel(i) == 0) {
                 System.out.print(" ");
             } else {
                 System.out.print('#');
@@ -130,20 +350,4 @@ public class Day_08 {
         finish = LocalTime.now();
         System.out.println("duration (ms): " + Duration.between(start, finish).toMillis());
     }
-
-    private static List<String> readFile(String[] args) throws IOException {
-        String fileName;
-        if (args.length == 0) {
-            fileName = DEFAULT_FILENAME;
-        } else {
-            fileName = args[0];
-        }
-
-        System.out.println("reading file: " + fileName);
-        // get the input lines
-        List<String> input = Files.lines(Path.of(fileName)).collect(toList());
-        System.out.println(String.format("read file: %s (#lines: %d)", fileName, input.size()));
-
-        return input;
-    }
 }
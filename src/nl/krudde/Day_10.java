@@ -1,10 +1,6 @@
 package nl.krudde;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-
 import java.io.IOException;
-import java.math.BigInteger;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
@@ -12,7 +8,6 @@ import java.time.LocalTime;
 import java.util.*;
 import java.util.stream.IntStream;
 
-import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
 
 
@@ -29,18 +24,13 @@ public class Day_10 {
         System.out.println("\npart 1: ");
 
         List<Point> asteroids = parseInput(input);
+        AsteroidField asteroidField = new AsteroidField(asteroids);
 
-        // for every 2 asteroids: calculate all points on the grid between them and check if there are any asteroids on it
-        Map.Entry<Integer, List<Point>> entryNumberAsteroidsInSightAndOptimalAsteroid = asteroids.stream()
-                .collect(groupingBy(asteroid -> numberOfAsteroidInDirectSight(asteroid, asteroids)))
-                .entrySet()
-                .stream()
-                .max(Comparator.comparingInt(Map.Entry::getKey))
-                .orElseThrow(() -> new IllegalStateException("no asteroid"));
-
-        Point optimalAsteroid = entryNumberAsteroidsInSightAndOptimalAsteroid.getValue().get(0);
+        // count the distinct directions to the other asteroids, the nearest one in each direction is in sight
+        int station = asteroidField.bestStation();
+        Point optimalAsteroid = asteroids.get(station);
         System.out.println("optimalAsteroid = " + optimalAsteroid);
-        int numberOfAsteroidInSight = entryNumberAsteroidsInSightAndOptimalAsteroid.getKey();
+        int numberOfAsteroidInSight = asteroidField.numberOfAsteroidsInSight(station);
         System.out.println("numberOfAsteroidInSight = " + numberOfAsteroidInSight);
 
         LocalTime finish = LocalTime.now();
@@ -50,39 +40,16 @@ public class Day_10 {
         start = LocalTime.now();
         System.out.println("\npart 2: ");
 
-        //remove the asteroid with the monitoring station
-        asteroids.remove(optimalAsteroid);
-
-        // bummer: part 2 really needs the actual calculated angles ...
-        // group all asteroid on angle
-        // sort each list (for an angle) on distance and add a sequence nr
-        // then flatmap, sort all the elements on <sequencenr, angle>
-        List<TriplePointAndAngleAndSequenceOnDistance> sortedTriplePointAndAngleAndSequenceOnDistanceList =
-                asteroids.stream()
-                        .collect(groupingBy(asteroid -> calculateAngle(optimalAsteroid, asteroid)))
-                        .entrySet()
-                        .stream()
-                        .flatMap(entry -> {
-                            //TODO improve to inline stream-ish
-                            List<Point> pointList = entry.getValue().stream().sorted(Comparator
-                                    .comparing(point -> calculateDistance(optimalAsteroid, point)))
-                                    .collect(toList());
-                            return IntStream.range(0, pointList.size())
-                                    .mapToObj(i ->
-                                            new TriplePointAndAngleAndSequenceOnDistance(pointList.get(i), entry.getKey(), i));
-                        })
-                        .sorted(Comparator
-                                .comparing(TriplePointAndAngleAndSequenceOnDistance::getSequenceOnAngle)
-                                .thenComparing(TriplePointAndAngleAndSequenceOnDistance::getAngle))
-                        .collect(toList());
-
+        // the laser sweeps clockwise over the directions from the station, vaporizing the nearest asteroid in each
+        Iterator<Point> vaporizationOrder = asteroidField.vaporizationOrder(station);
         int numberOfVaporizedAsteroidsToSkip = 199;
-        Point pointVaporized200 =
-                sortedTriplePointAndAngleAndSequenceOnDistanceList.stream()
-                        .skip(numberOfVaporizedAsteroidsToSkip)
-                        .findFirst()
-                        .orElseThrow(() -> new IllegalStateException("no asteroid"))
-                        .getPoint();
+        for (int i = 0; i < numberOfVaporizedAsteroidsToSkip && vaporizationOrder.hasNext(); i++) {
+            vaporizationOrder.next();
+        }
+        if (!vaporizationOrder.hasNext()) {
+            throw new IllegalStateException("no asteroid");
+        }
+        Point pointVaporized200 = vaporizationOrder.next();
         System.out.println("pointVaporized200 = " + pointVaporized200);
         System.out.println("result: " + (pointVaporized200.getX() * 100 + pointVaporized200.getY()));
 
@@ -98,134 +65,262 @@ public class Day_10 {
         System.out.println("duration (ms): " + Duration.between(start, finish).toMillis());
     }
 
-    private static double calculateDistance(Point p1, Point p2) {
-        // good old Pythagoras.. that was a VERY long time ago..
-        int xDelta = p2.getX() - p1.getX();
-        int yDelta = p2.getY() - p1.getY();
+    static List<Point> parseInput(List<String> input) {
+        List<Point> asteroids = new ArrayList<>();
+        for (int x = 0; x < input.get(0).length(); x++) {
+            for (int y = 0; y < input.size(); y++) {
+                if (input.get(y).charAt(x) == '#') {
+                    asteroids.add(new Point(x, y));
+                }
+            }
+        }
 
-        return Math.sqrt(xDelta * xDelta + yDelta * yDelta);
+        return asteroids;
     }
 
-    private static double calculateAngle(Point p1, Point p2) {
-//        Point cartesianPoint1 = new Point(0, 0);
-        Point cartesianPoint2 = calculateZeroZeroBasedCartesianPoint(p1, p2);
-        double rotAng = Math.abs(Math.toDegrees(Math.atan2(cartesianPoint2.getX(), -cartesianPoint2.getY())) - 180);
-        return rotAng;
-    }
+    private static List<String> readFile(String[] args) throws IOException {
+        String fileName;
+        if (args.length == 0) {
+            fileName = DEFAULT_FILENAME;
+        } else {
+            fileName = args[0];
+        }
 
-    private static Point calculateZeroZeroBasedCartesianPoint(Point p1, Point p2) {
-        int x = p2.getX() - p1.getX();
-        int y = p1.getY() - p2.getY();
+        System.out.println("reading file: " + fileName);
+        // get the input lines
+        List<String> input = Files.lines(Path.of(fileName)).collect(toList());
+        System.out.println(String.format("read file: %s (#lines: %d)", fileName, input.size()));
 
-        return new Point(x, y);
+        return input;
     }
+}
 
-
-    private static int numberOfAsteroidInDirectSight(Point asteroid, List<Point> asteroids) {
-        int count = (int) asteroids.stream()
-                .filter(targetAsteroid -> !asteroid.equals(targetAsteroid))
-                .filter(targetAsteroid -> inDirectSight(asteroids, asteroid, targetAsteroid))
-                .count();
-
-        return count;
+/**
+ * Asteroids seen from a station: an asteroid is in sight when it is the nearest one in its direction from the station.
+ * Directions are the vectors to the asteroids reduced by their gcd, so the number of asteroids in sight is the number
+ * of distinct reduced vectors. That is O(n) per station instead of walking the grid between every pair of asteroids.
+ */
+class AsteroidField {
+    private final List<Point> asteroids;
+    // reused per thread, the directions from one station at a time
+    private final ThreadLocal<LongSet> directions;
+
+    AsteroidField(List<Point> asteroids) {
+        this.asteroids = List.copyOf(asteroids);
+        this.directions = ThreadLocal.withInitial(() -> new LongSet(asteroids.size()));
     }
 
-    private static boolean inDirectSight(List<Point> asteroids, Point sourceAsteroid, Point targetAsteroid) {
-        List<Point> pointsBetween = calculatePointsBetweenPoint1AndPoint2(sourceAsteroid, targetAsteroid);
-        // none of the points between the source and destination may have an asteroid
-        boolean inDirectsight = pointsBetween.stream()
-                .noneMatch(asteroids::contains);
+    int numberOfAsteroidsInSight(int station) {
+        LongSet seen = directions.get();
+        seen.clear();
+        Point source = asteroids.get(station);
+        for (Point target : asteroids) {
+            if (target != source) {
+                seen.add(direction(source, target));
+            }
+        }
+        return seen.size();
+    }
 
-        return inDirectsight;
+    /**
+     * @return per asteroid the number of asteroids in sight, evaluated in parallel
+     */
+    int[] numberOfAsteroidsInSight() {
+        return IntStream.range(0, asteroids.size()).parallel()
+                .map(this::numberOfAsteroidsInSight)
+                .toArray();
     }
 
-    private static List<Point> parseInput(List<String> input) {
-        List<Point> asteroids = new ArrayList<>();
-        for (int x = 0; x < input.get(0).length(); x++) {
-            for (int y = 0; y < input.size(); y++) {
-                if (input.get(y).charAt(x) == '#') {
-                    asteroids.add(new Point(x, y));
-                }
+    /**
+     * @return index of the asteroid with the most asteroids in sight, the first one when there are more
+     */
+    int bestStation() {
+        int[] inSight = numberOfAsteroidsInSight();
+        if (inSight.length == 0) {
+            throw new IllegalStateException("no asteroid");
+        }
+        int best = 0;
+        for (int i = 1; i < inSight.length; i++) {
+            if (inSight[i] > inSight[best]) {
+                best = i;
             }
         }
+        return best;
+    }
 
-        return asteroids;
+    /**
+     * @return the asteroids in the order the laser at the station vaporizes them
+     */
+    Iterator<Point> vaporizationOrder(int station) {
+        return new VaporizationOrder(asteroids, station);
     }
 
-    private static List<Point> calculatePointsBetweenPoint1AndPoint2(Point start, Point end) {
-        List<Point> points = new ArrayList<>();
-        // calculate the delta to reach a next point on the grid
-        Point deltaPoint = calculateDeltaPoint(start, end);
-        Point point = start.nextPoint(deltaPoint);
+    /**
+     * @return the vector from source to target divided by its gcd, as {@link PackedPoint packed point}
+     */
+    static long direction(Point source, Point target) {
+        int dx = target.getX() - source.getX();
+        int dy = target.getY() - source.getY();
+        int gcd = gcd(dx, dy);
+        return PackedPoint.pack(dx / gcd, dy / gcd);
+    }
 
-        // walk to the endpoint, collecting all intermediate points
-        while (!point.equals(end)) {
-            points.add(point);
-            point = point.nextPoint(deltaPoint);
+    /**
+     * @return the positive greatest common divisor, not both a and b may be 0
+     */
+    static int gcd(int a, int b) {
+        a = Math.abs(a);
+        b = Math.abs(b);
+        while (b != 0) {
+            int remainder = a % b;
+            a = b;
+            b = remainder;
         }
-
-        return points;
+        return a;
     }
+}
 
-    public static Point calculateDeltaPoint(Point start, Point end) {
-        assert !start.equals(end);
-        // shortcut when both points are on a horizontal or vertical line
-        if (start.getX() == end.getX()) {
-            if (start.getY() < end.getY()) {
-                return new Point(0, 1);
-            } else {
-                return new Point(0, -1);
+/**
+ * The asteroids in the order the laser vaporizes them: it starts pointing up and rotates clockwise,
+ * vaporizing the nearest asteroid in every direction it passes.
+ * <p>
+ * The directions are sorted once on their exact angle, and every direction keeps a queue of its asteroids on distance.
+ * A queue is only sorted when the laser passes it for the second time, the first pass just takes the nearest asteroid.
+ * So the k-th asteroid takes O(d log d) for the d directions plus about O(k) for the rotations, not a sort of all asteroids.
+ */
+class VaporizationOrder implements Iterator<Point> {
+    private final List<Point> asteroids;
+    // per direction the asteroids on it as (multiple of the direction << 32 | index in asteroids)
+    private final long[][] queues;
+    // per direction the next asteroid in its queue
+    private final int[] positions;
+    // the directions which still have asteroids, in clockwise order; those of the current rotation up to nrActive
+    private final int[] active;
+    private int nrActive;
+    // position in active during the current rotation, and the number of directions kept for the next rotation
+    private int current;
+    private int nrKept;
+    private int remaining;
+
+    VaporizationOrder(List<Point> asteroids, int station) {
+        this.asteroids = asteroids;
+        Point source = asteroids.get(station);
+
+        // number the distinct directions and count the asteroids on them
+        LongIntMap directionIds = new LongIntMap(asteroids.size());
+        int[] directionOf = new int[asteroids.size()];
+        long[] directions = new long[asteroids.size()];
+        int nrDirections = 0;
+        int[] counts = new int[asteroids.size()];
+        for (int i = 0; i < asteroids.size(); i++) {
+            if (i == station) {
+                continue;
             }
-        }
-        if (start.getY() == end.getY()) {
-            if (start.getX() < end.getX()) {
-                return new Point(1, 0);
-            } else {
-                return new Point(-1, 0);
+            long direction = AsteroidField.direction(source, asteroids.get(i));
+            int id = directionIds.getOrDefault(direction, -1);
+            if (id < 0) {
+                id = nrDirections++;
+                directionIds.put(direction, id);
+                directions[id] = direction;
             }
+            directionOf[i] = id;
+            counts[id]++;
         }
 
-        // shortcut for diagonal lines
-        int yDelta = end.getY() - start.getY();
-        int xDelta = end.getX() - start.getX();
-
-        if (xDelta == yDelta) {
-            return new Point(xDelta / Math.abs(xDelta), yDelta / Math.abs(yDelta));
+        queues = new long[nrDirections][];
+        for (int id = 0; id < nrDirections; id++) {
+            queues[id] = new long[counts[id]];
         }
+        int[] filled = new int[nrDirections];
+        for (int i = 0; i < asteroids.size(); i++) {
+            if (i == station) {
+                continue;
+            }
+            int id = directionOf[i];
+            long direction = directions[id];
+            int dx = asteroids.get(i).getX() - source.getX();
+            int multiple = PackedPoint.x(direction) != 0 ? dx / PackedPoint.x(direction) : (asteroids.get(i).getY() - source.getY()) / PackedPoint.y(direction);
+            queues[id][filled[id]++] = (long) multiple << 32 | i;
+        }
+        positions = new int[nrDirections];
+        remaining = asteroids.size() - 1;
+
+        active = IntStream.range(0, nrDirections).boxed()
+                .sorted((id1, id2) -> compareClockwise(directions[id1], directions[id2]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        nrActive = active.length;
+    }
 
-        // simplify by using the common denominator
-        BigInteger bdx = BigInteger.valueOf(xDelta);
-        BigInteger bdy = BigInteger.valueOf(yDelta);
-        BigInteger gcd = bdx.gcd(bdy);
+    @Override
+    public boolean hasNext() {
+        return remaining > 0;
+    }
 
-        if (!gcd.equals(BigInteger.ONE)) {
-            xDelta /= gcd.intValue();
-            yDelta /= gcd.intValue();
+    @Override
+    public Point next() {
+        if (remaining == 0) {
+            throw new NoSuchElementException("all asteroids are vaporized");
+        }
+        if (current == nrActive) {
+            // next rotation, over the directions which still have asteroids
+            nrActive = nrKept;
+            current = 0;
+            nrKept = 0;
         }
-        return new Point(xDelta, yDelta);
+        int direction = active[current++];
+        Point asteroid = asteroids.get(poll(direction));
+        if (positions[direction] < queues[direction].length) {
+            // kept in place, nrKept never passes current
+            active[nrKept++] = direction;
+        }
+        remaining--;
+        return asteroid;
     }
 
-    private static List<String> readFile(String[] args) throws IOException {
-        String fileName;
-        if (args.length == 0) {
-            fileName = DEFAULT_FILENAME;
-        } else {
-            fileName = args[0];
+    /**
+     * @return index of the nearest asteroid left in the direction
+     */
+    private int poll(int direction) {
+        long[] queue = queues[direction];
+        int position = positions[direction]++;
+        if (position == 0) {
+            // first rotation: only move the nearest to the front
+            int nearest = 0;
+            for (int i = 1; i < queue.length; i++) {
+                if (queue[i] < queue[nearest]) {
+                    nearest = i;
+                }
+            }
+            long swap = queue[0];
+            queue[0] = queue[nearest];
+            queue[nearest] = swap;
+        } else if (position == 1) {
+            Arrays.sort(queue, 1, queue.length);
         }
+        return (int) queue[position];
+    }
 
-        System.out.println("reading file: " + fileName);
-        // get the input lines
-        List<String> input = Files.lines(Path.of(fileName)).collect(toList());
-        System.out.println(String.format("read file: %s (#lines: %d)", fileName, input.size()));
-
-        return input;
+    /**
+     * Compare directions (y pointing down) on their clockwise angle from up, exact on the cross product.
+     */
+    static int compareClockwise(long direction1, long direction2) {
+        int half1 = half(direction1);
+        int half2 = half(direction2);
+        if (half1 != half2) {
+            return Integer.compare(half1, half2);
+        }
+        // within a half the cross product is positive when direction2 is clockwise of direction1
+        long cross = (long) PackedPoint.x(direction1) * PackedPoint.y(direction2) - (long) PackedPoint.y(direction1) * PackedPoint.x(direction2);
+        return -Long.signum(cross);
     }
-}
 
-@AllArgsConstructor
-@Data
-class TriplePointAndAngleAndSequenceOnDistance {
-    private Point point;
-    private double angle;
-    private double sequenceOnAngle;
+    /**
+     * @return 0 for directions from up (inclusive) to down (exclusive) clockwise, 1 for the other half
+     */
+    private static int half(long direction) {
+        int dx = PackedPoint.x(direction);
+        int dy = PackedPoint.y(direction);
+        return dx > 0 || (dx == 0 && dy < 0) ? 0 : 1;
+    }
 }
@@ -1,151 +1,14 @@
 package nl.krudde;
 
-import lombok.Builder;
-import lombok.Data;
-
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalTime;
 import java.util.*;
-import java.util.stream.IntStream;
 
 import static java.util.stream.Collectors.toList;
 
-@Data
-@Builder
-class IntcodeV5 {
-    private double[] program;
-    private int position;
-    private int relativeBase;
-
-    @Builder.Default
-    private boolean halted = false;
-    @Builder.Default
-    private Queue<Integer> input = new LinkedList<>();
-    @Builder.Default
-    private Queue<Integer> output = new LinkedList<>();
-    @Builder.Default
-    private boolean initialised = false;
-
-    public void addInput(Integer input) {
-        this.input.add(input);
-    }
-
-    public int getOutput() {
-        return output.remove();
-    }
-
-    public void run() {
-        int opcode;
-        double firstParameter, secondParameter;
-        boolean waitingForInput = false;
-
-        if (!initialised) {
-            double[] inputProgram = program;
-            // make space for 256K memory above the program
-            program = new double[program.length + 256 * 1024];
-            // copy the program
-            System.arraycopy(inputProgram, 0, program, 0, inputProgram.length);
-            initialised = true;
-        }
-
-        while (!halted && !waitingForInput) {
-            opcode = getOpcode(position);
-            switch (opcode) {
-                case 1 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter + secondParameter;
-                    position += 4;
-                }
-                case 2 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter * secondParameter;
-                    position += 4;
-                }
-                case 3 -> {
-                    if (input.peek() == null) {
-                        waitingForInput = true;
-                    } else {
-                        waitingForInput = false;
-
-                        int writePosition = getPosition(position, 1);
-                        program[writePosition] = input.remove();
-                        position += 2;
-                    }
-                }
-                case 4 -> {
-                    firstParameter = getParameter(position, 1);
-                    output.add((int) firstParameter);
-                    position += 2;
-                }
-                case 5 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    if (firstParameter != 0) {
-                        position = (int) secondParameter;
-                    } else {
-                        position += 3;
-                    }
-                }
-                case 6 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    if (firstParameter == 0) {
-                        position = (int) secondParameter;
-                    } else {
-                        position += 3;
-                    }
-                }
-                case 7 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter < secondParameter ? 1 : 0;
-                    position += 4;
-                }
-                case 8 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter == secondParameter ? 1 : 0;
-                    position += 4;
-                }
-                case 9 -> {
-                    firstParameter = getParameter(position, 1);
-                    relativeBase += firstParameter;
-                    position += 2;
-                }
-                default -> throw new IllegalStateException("unknown opcode: " + opcode);
-            }
-            halted = program[position] == 99;
-        }
-    }
-
-    private int getOpcode(int position) {
-        return (int) (program[position] % 100);
-    }
-
-    private double getParameter(int positionInstruction, int index) {
-        return program[getPosition(positionInstruction, index)];
-    }
-
-    private int getPosition(int positionInstruction, int index) {
-        int instruction = (int) program[positionInstruction];
-        int mode = (instruction / (10 * (int) Math.pow(10, index))) % 10;
-        return switch (Mode.of(mode)) {
-            case MODE_IMMEDIATE -> positionInstruction + index;
-            case MODE_POSITION -> (int) program[positionInstruction + index];
-            case MODE_RELATIVE -> (int) (program[positionInstruction + index] + relativeBase);
-        };
-    }
-}
-
 public class Day_11 {
 
     final static String DEFAULT_FILENAME = new Object() {
@@ -158,36 +21,13 @@ public class Day_11 {
 
         // part 1
         System.out.println("\npart 1: ");
-        double[] intCodeProgram = Arrays.stream(input.split(","))
-                .mapToDouble(Double::valueOf)
+        long[] intCodeProgram = Arrays.stream(input.split(","))
+                .mapToLong(Long::valueOf)
                 .toArray();
 
-        IntcodeV5 intcode = new IntcodeV5.IntcodeV5Builder()
-                .program(intCodeProgram)
-                .build();
-
-        final Map<Point, Color> map = new HashMap<>();
-        Point currentLocation = new Point(0, 0);
-        Direction currentDirection = Direction.U;
-
-        map.put(currentLocation, Color.BLACK);
-        intcode.addInput(0);
-
-        while (!intcode.isHalted()) {
-            intcode.run();
-            Color color = Color.of(intcode.getOutput());
-            map.put(currentLocation, color);
-            PaintRobotDirection direction = PaintRobotDirection.of(intcode.getOutput());
-            currentDirection = currentDirection.nextDirection(direction);
-            currentLocation = currentLocation.nextPoint(currentDirection);
-
-            if (!map.containsKey(currentLocation)) {
-                map.put(currentLocation, Color.BLACK);
-            }
-            intcode.addInput(map.get(currentLocation).ordinal());
-        }
+        HullCanvas hull = paintHull(intCodeProgram, Color.BLACK);
 
-        int numberOfPanelsPainted = map.size();
+        int numberOfPanelsPainted = hull.nrPainted();
         System.out.println("numberOfPanelsPainted = " + numberOfPanelsPainted);
 
         System.out.println();
@@ -199,66 +39,52 @@ public class Day_11 {
         start = LocalTime.now();
         System.out.println("\npart 2: ");
 
-        intcode = new IntcodeV5.IntcodeV5Builder()
-                .program(intCodeProgram)
-                .build();
-
-        map.clear();
-        currentLocation = new Point(0, 0);
-        currentDirection = Direction.U;
-
-        map.put(currentLocation, Color.BLACK);
-        intcode.addInput(1);
-
-        while (!intcode.isHalted()) {
-            intcode.run();
-            Color color = Color.of(intcode.getOutput());
-            map.put(currentLocation, color);
-            PaintRobotDirection direction = PaintRobotDirection.of(intcode.getOutput());
-            currentDirection = currentDirection.nextDirection(direction);
-            currentLocation = currentLocation.nextPoint(currentDirection);
-
-            if (!map.containsKey(currentLocation)) {
-                map.put(currentLocation, Color.BLACK);
-            }
-            intcode.addInput(map.get(currentLocation).ordinal());
-        }
+        hull = paintHull(intCodeProgram, Color.WHITE);
 
-        int maxX = map.keySet().stream()
-                .mapToInt(Point::getX)
-                .max()
-                .orElseThrow(() -> new IllegalStateException("no max"));
+        int maxX = hull.getMaxX();
         System.out.println("maxX = " + maxX);
-        int maxY = map.keySet().stream()
-                .mapToInt(Point::getY)
-                .max()
-                .orElseThrow(() -> new IllegalStateException("no max"));
+        int maxY = hull.getMaxY();
         System.out.println("maxY = " + maxY);
         System.out.println();
 
-        IntStream.rangeClosed(0, maxY)
-                .forEach(y -> {
-                    IntStream.rangeClosed(0, maxX)
-                            .forEach(x -> {
-                                if (x % (maxX / 8) == 0) {
-                                    System.out.print(' ');
-                                }
-                                if (map.containsKey(new Point(x, y))) {
-                                    switch (map.get(new Point(x, y))) {
-                                        case BLACK -> System.out.print(' ');
-                                        case WHITE -> System.out.print('X');
-                                    }
-                                } else {
-                                    System.out.print(' ');
-                                }
-                            });
-                    System.out.println();
-                });
+        // a space between the letters, which are about an eighth of the width
+        int letterWidth = Math.max(1, (maxX - hull.getMinX()) / 8);
+        for (String row : hull.render()) {
+            for (int x = 0; x < row.length(); x++) {
+                if (x % letterWidth == 0) {
+                    System.out.print(' ');
+                }
+                System.out.print(row.charAt(x));
+            }
+            System.out.println();
+        }
 
         finish = LocalTime.now();
         System.out.println("duration (ms): " + Duration.between(start, finish).toMillis());
     }
 
+    static HullCanvas paintHull(long[] intCodeProgram, Color startColor) {
+        IntcodeComputer intcode = new IntcodeComputer.IntcodeComputerBuilder()
+                .program(intCodeProgram)
+                .build();
+
+        HullCanvas hull = new HullCanvas();
+        long currentLocation = PackedPoint.pack(0, 0);
+        Direction currentDirection = Direction.U;
+        intcode.addInput(startColor.ordinal());
+
+        while (!intcode.isHalted()) {
+            intcode.run();
+            Color color = Color.of((int) intcode.getOutput());
+            hull.paint(currentLocation, color);
+            PaintRobotDirection direction = PaintRobotDirection.of((int) intcode.getOutput());
+            currentDirection = currentDirection.nextDirection(direction);
+            currentLocation = PackedPoint.next(currentLocation, currentDirection);
+            intcode.addInput(hull.getColor(currentLocation).ordinal());
+        }
+        return hull;
+    }
+
     private static List<String> readFile(String[] args) throws IOException {
         String fileName;
         if (args.length == 0) {
@@ -289,20 +115,153 @@ enum Color {
     }
 }
 
+/**
+ * The panels of the hull, in tiles of 64x64 panels which are created where the robot paints, in any direction.
+ * Every row of a tile is a long with a bit per panel, one for painted at least once and one for white.
+ * The robot mostly stays on the same tile, so that tile is remembered and a step does not need a lookup.
+ */
+class HullCanvas {
+    private static final int TILE_BITS = 6;
+    private static final int TILE_SIZE = 1 << TILE_BITS;
+    private static final int TILE_MASK = TILE_SIZE - 1;
+
+    // tile index per packed tile location (x >> TILE_BITS, y >> TILE_BITS)
+    private final LongIntMap tileIds = new LongIntMap();
+    private long[] tileLocations = new long[16];
+    // per tile TILE_SIZE rows, the bits of a row are the panels from the left
+    private long[] painted = new long[16 * TILE_SIZE];
+    private long[] white = new long[16 * TILE_SIZE];
+    private int nrTiles;
+
+    private long lastTileLocation;
+    private int lastTile = -1;
+
+    private int nrPainted;
+    private int minX = Integer.MAX_VALUE;
+    private int maxX = Integer.MIN_VALUE;
+    private int minY = Integer.MAX_VALUE;
+    private int maxY = Integer.MIN_VALUE;
+
+    /**
+     * @return the color of the panel, black when it was never painted
+     */
+    Color getColor(long location) {
+        int tile = tile(location, false);
+        if (tile < 0) {
+            return Color.BLACK;
+        }
+        return (white[row(tile, location)] & bit(location)) != 0 ? Color.WHITE : Color.BLACK;
+    }
 
+    void paint(long location, Color color) {
+        int tile = tile(location, true);
+        int row = row(tile, location);
+        long bit = bit(location);
+        if ((painted[row] & bit) == 0) {
+            painted[row] |= bit;
+            nrPainted++;
+            int x = PackedPoint.x(location);
+            int y = PackedPoint.y(location);
+            minX = Math.min(minX, x);
+            maxX = Math.max(maxX, x);
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+        }
+        if (color == Color.WHITE) {
+            white[row] |= bit;
+        } else {
+            white[row] &= ~bit;
+        }
+    }
 
+    /**
+     * @return the number of panels painted at least once
+     */
+    int nrPainted() {
+        return nrPainted;
+    }
 
-enum Mode {
-    MODE_POSITION,
-    MODE_IMMEDIATE,
-    MODE_RELATIVE;
+    int getMinX() {
+        return minX;
+    }
 
-    static Mode of(int i) {
-        return switch (i) {
-            case 0 -> MODE_POSITION;
-            case 1 -> MODE_IMMEDIATE;
-            case 2 -> MODE_RELATIVE;
-            default -> throw new IllegalArgumentException("unknown mode: " + i);
-        };
+    int getMaxX() {
+        return maxX;
+    }
+
+    int getMinY() {
+        return minY;
+    }
+
+    int getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * @return the rows of the painted area, with 'X' for a white panel and ' ' for a black one
+     */
+    List<String> render() {
+        if (nrPainted == 0) {
+            return List.of();
+        }
+        char[][] rows = new char[maxY - minY + 1][maxX - minX + 1];
+        for (char[] row : rows) {
+            Arrays.fill(row, ' ');
+        }
+        // only the white panels of each tile are visited
+        for (int tile = 0; tile < nrTiles; tile++) {
+            int tileX = PackedPoint.x(tileLocations[tile]) << TILE_BITS;
+            int tileY = PackedPoint.y(tileLocations[tile]) << TILE_BITS;
+            for (int row = 0; row < TILE_SIZE; row++) {
+                long bits = white[tile * TILE_SIZE + row];
+                while (bits != 0) {
+                    int column = Long.numberOfTrailingZeros(bits);
+                    rows[tileY + row - minY][tileX + column - minX] = 'X';
+                    bits &= bits - 1;
+                }
+            }
+        }
+        return Arrays.stream(rows)
+                .map(String::new)
+                .collect(toList());
+    }
+
+    /**
+     * @return index of the tile with the location, -1 when it does not exist and is not created
+     */
+    private int tile(long location, boolean create) {
+        long tileLocation = PackedPoint.pack(PackedPoint.x(location) >> TILE_BITS, PackedPoint.y(location) >> TILE_BITS);
+        if (lastTile >= 0 && tileLocation == lastTileLocation) {
+            return lastTile;
+        }
+        int tile = tileIds.getOrDefault(tileLocation, -1);
+        if (tile < 0) {
+            if (!create) {
+                return -1;
+            }
+            tile = addTile(tileLocation);
+        }
+        lastTileLocation = tileLocation;
+        lastTile = tile;
+        return tile;
+    }
+
+    private int addTile(long tileLocation) {
+        if (nrTiles == tileLocations.length) {
+            tileLocations = Arrays.copyOf(tileLocations, 2 * nrTiles);
+            painted = Arrays.copyOf(painted, 2 * nrTiles * TILE_SIZE);
+            white = Arrays.copyOf(white, 2 * nrTiles * TILE_SIZE);
+        }
+        tileLocations[nrTiles] = tileLocation;
+        tileIds.put(tileLocation, nrTiles);
+        return nrTiles++;
+    }
+
+    private static int row(int tile, long location) {
+        return tile * TILE_SIZE + (PackedPoint.y(location) & TILE_MASK);
+    }
+
+    private static long bit(long location) {
+        return 1L << (PackedPoint.x(location) & TILE_MASK);
     }
 }
@@ -1,13 +1,8 @@
 package nl.krudde;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-
 import java.io.IOException;
-import java.math.BigInteger;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.LocalTime;
 import java.util.*;
@@ -20,7 +15,7 @@ public class Day_12 {
     final static String DEFAULT_FILENAME = new Object() {
     }.getClass().getEnclosingClass().getSimpleName().toLowerCase().replace("_0", "_") + ".txt";
 
-    public static void main(String[] args) throws IOException, NoSuchAlgorithmException {
+    public static void main(String[] args) throws IOException {
         List<String> input = readFile(args);
 
         // part 1
@@ -28,15 +23,12 @@ public class Day_12 {
         System.out.println("\npart 1: ");
 
         //<x=-7, y=17, z=-11>
-        List<Moon> moons = createMoonsFromInput(input);
-        List<MoonPair> moonPairs = generateMoonPairs(moons);
+        NBodySimulation simulation = new NBodySimulation(createMoonsFromInput(input));
 
         int maxSteps = 1000;
-        for (int i = 1; i <= maxSteps; i++) {
-            moons = timeStep(moons, moonPairs);
-        }
+        simulation.steps(maxSteps);
 
-        int totalEnergy = calculateTotalEnergy((List<Moon>) moons);
+        int totalEnergy = simulation.totalEnergy();
         System.out.println("After " + maxSteps + " steps:");
         System.out.println("totalEnergy = " + totalEnergy + "\n");
 
@@ -47,93 +39,24 @@ public class Day_12 {
         start = LocalTime.now();
         System.out.println("\npart 2: ");
 
-        moons = createMoonsFromInput(input);
-        moonPairs = generateMoonPairs(moons);
-        Map<String, Integer> mapXcoordinates = new HashMap<>();
-        Map<String, Integer> mapYcoordinates = new HashMap<>();
-        Map<String, Integer> mapZcoordinates = new HashMap<>();
-        mapXcoordinates.put(getCoordinateFromMoons(moons, Coordinate.X), 0);
-        mapYcoordinates.put(getCoordinateFromMoons(moons, Coordinate.Y), 0);
-        mapZcoordinates.put(getCoordinateFromMoons(moons, Coordinate.Z), 0);
-
-        boolean foundX = false;
-        boolean foundY = false;
-        boolean foundZ = false;
-
-        int repeatAtStepForX = -1;
-        int repeatAtStepForY = -1;
-        int repeatAtStepForZ = -1;
-
-        int step = 0;
-
-        while (!foundX || !foundY || !foundZ) {
-            moons = timeStep(moons, moonPairs);
-            step++;
-
-            String xCoordinates = getCoordinateFromMoons(moons, Coordinate.X);
-            String yCoordinates = getCoordinateFromMoons(moons, Coordinate.Y);
-            String zCoordinates = getCoordinateFromMoons(moons, Coordinate.Z);
-
-            if (!foundX && mapXcoordinates.containsKey(xCoordinates)) {
-                System.out.println("repeat x: " + mapXcoordinates.get(xCoordinates) + "->" + step);
-                repeatAtStepForX = step;
-                foundX = true;
-            } else {
-                mapXcoordinates.put(xCoordinates, step);
-            }
-            if (!foundY && mapYcoordinates.containsKey(yCoordinates)) {
-                System.out.println("repeat y: " + mapYcoordinates.get(yCoordinates) + "->" + step);
-                repeatAtStepForY = step;
-                foundY = true;
-            } else {
-                mapYcoordinates.put(yCoordinates, step);
-            }
-            if (!foundZ && mapZcoordinates.containsKey(zCoordinates)) {
-                System.out.println("repeat z: " + mapZcoordinates.get(zCoordinates) + "->" + step);
-                repeatAtStepForZ = step;
-                foundZ = true;
-            } else {
-                mapZcoordinates.put(zCoordinates, step);
-            }
+        // the axes are independent and every step can be reversed, so each axis returns to its initial state
+        // and the whole system repeats after the least common multiple of the cycles of the axes
+        simulation = new NBodySimulation(createMoonsFromInput(input));
+        long[] cycles = simulation.cycleLengths();
+        for (Coordinate coordinate : Coordinate.values()) {
+            System.out.println("repeat " + coordinate.name().toLowerCase() + ": 0->" + cycles[coordinate.ordinal()]);
         }
-        BigInteger nrSteps = LCM(
-                LCM(BigInteger.valueOf(repeatAtStepForX), BigInteger.valueOf(repeatAtStepForY)),
-                LCM(BigInteger.valueOf(repeatAtStepForY), BigInteger.valueOf(repeatAtStepForZ))
-        );
+        long nrSteps = Arrays.stream(cycles).reduce(1, NBodySimulation::lcm);
         System.out.println("maxSteps = " + nrSteps);
 
         finish = LocalTime.now();
         System.out.println("duration (ms): " + Duration.between(start, finish).toMillis());
     }
 
-    private static int calculateTotalEnergy(List<Moon> moons) {
-        return moons.stream()
-                .mapToInt(Moon::totalEnergy)
-                .sum();
-    }
-
-    private static String getCoordinateFromMoons(List<Moon> moons, Coordinate coordinate) {
-        int[] coordinates = moons.stream()
-                .flatMapToInt(moon -> switch (coordinate) {
-                    case X -> IntStream.of(moon.getPosition().getX(), moon.getVelocity().getX());
-                    case Y -> IntStream.of(moon.getPosition().getY(), moon.getVelocity().getY());
-                    case Z -> IntStream.of(moon.getPosition().getZ(), moon.getVelocity().getZ());
-                })
-                .toArray();
-
-        return Arrays.toString(coordinates);
-    }
-
-    private static List<Moon> timeStep(List<Moon> moons, List<MoonPair> moonPairs) {
-        moonPairs.stream()
-                .forEach(MoonPair::applyGravity);
-        moons.stream()
-                .forEach(Moon::applyVelocity);
-
-        return moons;
-    }
-
-    private static List<Moon> createMoonsFromInput(List<String> input) {
+    /**
+     * @return per moon its x, y and z
+     */
+    static List<int[]> createMoonsFromInput(List<String> input) {
         return input.stream()
                 .filter(l -> l.trim().length() > 0)
                 .map(line ->
@@ -141,37 +64,9 @@ public class Day_12 {
                                 .split(","))
                                 .mapToInt(Integer::valueOf)
                                 .toArray())
-                .map(coordinates -> new Moon(new Point3D(coordinates[0], coordinates[1], coordinates[2])))
                 .collect(toList());
     }
 
-    private static List<MoonPair> generateMoonPairs(List<Moon> moons) {
-        List<MoonPair> moonPairs = new ArrayList<>();
-
-        // quite old school .. could not make it work with Streams :-(
-        for (int i = 0; i < moons.size(); i++) {
-            for (int j = 0; j < moons.size(); j++) {
-                if (i == j) continue;
-                MoonPair mp1 = new MoonPair(moons.get(i), moons.get(j));
-                MoonPair mp2 = new MoonPair(moons.get(j), moons.get(i));
-                if (!moonPairs.contains(mp1) && !moonPairs.contains(mp2)) {
-                    moonPairs.add(mp1);
-                }
-            }
-        }
-
-        return moonPairs;
-    }
-
-    private static BigInteger LCM(BigInteger a, BigInteger b) {
-        return a.multiply(b).divide(GCF(a, b));
-    }
-
-    private static BigInteger GCF(BigInteger a, BigInteger b) {
-        if (b.equals(BigInteger.ZERO)) return a;
-        else return (GCF(b, a.mod(b)));
-    }
-
     private static List<String> readFile(String[] args) throws IOException {
         String fileName;
         if (args.length == 0) {
@@ -190,77 +85,106 @@ public class Day_12 {
 
 }
 
-@AllArgsConstructor
-@Data
-class Point3D {
-    private int x;
-    private int y;
-    private int z;
-}
-
-@AllArgsConstructor
-@Data
-class Moon {
-    private Point3D position;
-    private Point3D velocity;
-
-    Moon(Point3D point) {
-        position = point;
-        velocity = new Point3D(0, 0, 0);
+/**
+ * Moons pulling at each other, with an int[] per axis for the positions and one for the velocities of all moons.
+ * The axes do not influence each other, so each axis is simulated on its own, the three of them in parallel.
+ * A step does not allocate: gravity is applied once per pair of moons and then the velocities are added.
+ */
+class NBodySimulation {
+    private static final int NR_AXES = Coordinate.values().length;
+
+    private final int nrMoons;
+    // [axis][moon]
+    private final int[][] positions;
+    private final int[][] velocities;
+
+    NBodySimulation(List<int[]> moons) {
+        nrMoons = moons.size();
+        positions = new int[NR_AXES][nrMoons];
+        velocities = new int[NR_AXES][nrMoons];
+        for (int moon = 0; moon < nrMoons; moon++) {
+            if (moons.get(moon).length != NR_AXES) {
+                throw new IllegalStateException("expected " + NR_AXES + " coordinates for moon: " + Arrays.toString(moons.get(moon)));
+            }
+            for (int axis = 0; axis < NR_AXES; axis++) {
+                positions[axis][moon] = moons.get(moon)[axis];
+            }
+        }
     }
 
-    public void applyVelocity() {
-        position.setX(position.getX() + velocity.getX());
-        position.setY(position.getY() + velocity.getY());
-        position.setZ(position.getZ() + velocity.getZ());
+    void steps(int nrSteps) {
+        IntStream.range(0, NR_AXES).parallel()
+                .forEach(axis -> {
+                    for (int i = 0; i < nrSteps; i++) {
+                        step(positions[axis], velocities[axis]);
+                    }
+                });
     }
 
     int totalEnergy() {
-        return potentialEnergy() * kineticEnergy();
-    }
-
-    private int potentialEnergy() {
-        return Math.abs(position.getX()) + Math.abs(position.getY()) + Math.abs(position.getZ());
+        int totalEnergy = 0;
+        for (int moon = 0; moon < nrMoons; moon++) {
+            int potentialEnergy = 0;
+            int kineticEnergy = 0;
+            for (int axis = 0; axis < NR_AXES; axis++) {
+                potentialEnergy += Math.abs(positions[axis][moon]);
+                kineticEnergy += Math.abs(velocities[axis][moon]);
+            }
+            totalEnergy += potentialEnergy * kineticEnergy;
+        }
+        return totalEnergy;
+    }
+
+    /**
+     * A step can be reversed, so the first state which repeats is the current one: an axis is simulated until it is
+     * back at its current positions and velocities, nothing else is remembered.
+     *
+     * @return per axis the number of steps until it repeats
+     */
+    long[] cycleLengths() {
+        return IntStream.range(0, NR_AXES).parallel()
+                .mapToLong(this::cycleLength)
+                .toArray();
     }
 
-    private int kineticEnergy() {
-        return Math.abs(velocity.getX()) + Math.abs(velocity.getY()) + Math.abs(velocity.getZ());
+    private long cycleLength(int axis) {
+        int[] initialPositions = positions[axis];
+        int[] initialVelocities = velocities[axis];
+        int[] axisPositions = initialPositions.clone();
+        int[] axisVelocities = initialVelocities.clone();
+        long steps = 0;
+        do {
+            step(axisPositions, axisVelocities);
+            steps++;
+        } while (!Arrays.equals(axisPositions, initialPositions) || !Arrays.equals(axisVelocities, initialVelocities));
+        return steps;
+    }
+
+    private void step(int[] axisPositions, int[] axisVelocities) {
+        for (int moon1 = 0; moon1 < nrMoons; moon1++) {
+            int position1 = axisPositions[moon1];
+            for (int moon2 = moon1 + 1; moon2 < nrMoons; moon2++) {
+                int delta = Integer.compare(axisPositions[moon2], position1);
+                axisVelocities[moon1] += delta;
+                axisVelocities[moon2] -= delta;
+            }
+        }
+        for (int moon = 0; moon < nrMoons; moon++) {
+            axisPositions[moon] += axisVelocities[moon];
+        }
     }
-}
-
-@AllArgsConstructor
-@Data
-class MoonPair {
-    private final Moon moon1;
-    private final Moon moon2;
-
-    public void applyGravity() {
-        Point3D position1 = moon1.getPosition();
-        Point3D velocity1 = moon1.getVelocity();
-        Point3D position2 = moon2.getPosition();
-        Point3D velocity2 = moon2.getVelocity();
 
-        int delta;
-        delta = calculateDelta(position1.getX(), position2.getX());
-        velocity1.setX(velocity1.getX() + delta);
-        velocity2.setX(velocity2.getX() - delta);
-
-        delta = calculateDelta(position1.getY(), position2.getY());
-        velocity1.setY(velocity1.getY() + delta);
-        velocity2.setY(velocity2.getY() - delta);
-
-        delta = calculateDelta(position1.getZ(), position2.getZ());
-        velocity1.setZ(velocity1.getZ() + delta);
-        velocity2.setZ(velocity2.getZ() - delta);
+    static long lcm(long a, long b) {
+        return a / gcd(a, b) * b;
     }
 
-    private int calculateDelta(int x1, int x2) {
-        if (x1 == x2) return 0;
-
-        if (x1 < x2) {
-            return 1;
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long remainder = a % b;
+            a = b;
+            b = remainder;
         }
-        return -1;
+        return a;
     }
 }
 
@@ -1,7 +1,6 @@
 package nl.krudde;
 
 import lombok.AllArgsConstructor;
-import lombok.Builder;
 import lombok.Data;
 import lombok.Getter;
 
@@ -11,159 +10,13 @@ import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalTime;
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
 
 import static java.util.stream.Collectors.toList;
 import static nl.krudde.JoystickMode.*;
 import static nl.krudde.Tile.BLOCK;
 import static nl.krudde.Tile.of;
 
-@Data
-@Builder
-class IntcodeV6 {
-    private double[] program;
-    private int position;
-    private int relativeBase;
-
-    @Builder.Default
-    private boolean halted = false;
-    @Builder.Default
-    boolean waitingForInput = false;
-    @Builder.Default
-    private Queue<Integer> input = new LinkedList<>();
-    @Builder.Default
-    private Queue<Integer> output = new LinkedList<>();
-    @Builder.Default
-    private boolean initialised = false;
-
-    public void addInput(Integer input) {
-        this.input.add(input);
-        waitingForInput = false;
-    }
-
-    public boolean hasOutput() {
-        return !output.isEmpty();
-    }
-
-    public int getOutput() {
-        return output.remove();
-    }
-
-    public void setMemoryZeroValue(int value) {
-        program[0] = value;
-    }
-
-    public void run() {
-        int opcode;
-        double firstParameter, secondParameter;
-
-        if (!initialised) {
-            double[] inputProgram = program;
-            // make space for 256K memory above the program
-            program = new double[program.length + 256 * 1024];
-            // copy the program
-            System.arraycopy(inputProgram, 0, program, 0, inputProgram.length);
-            initialised = true;
-        }
-
-        while (!halted && !waitingForInput) {
-            opcode = getOpcode(position);
-            switch (opcode) {
-                case 1 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter + secondParameter;
-                    position += 4;
-                }
-                case 2 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter * secondParameter;
-                    position += 4;
-                }
-                case 3 -> {
-                    if (input.peek() == null) {
-                        waitingForInput = true;
-                    } else {
-                        waitingForInput = false;
-
-                        int writePosition = getPosition(position, 1);
-                        program[writePosition] = input.remove();
-                        position += 2;
-                    }
-                }
-                case 4 -> {
-                    firstParameter = getParameter(position, 1);
-                    output.add((int) firstParameter);
-                    position += 2;
-                }
-                case 5 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    if (firstParameter != 0) {
-                        position = (int) secondParameter;
-                    } else {
-                        position += 3;
-                    }
-                }
-                case 6 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    if (firstParameter == 0) {
-                        position = (int) secondParameter;
-                    } else {
-                        position += 3;
-                    }
-                }
-                case 7 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter < secondParameter ? 1 : 0;
-                    position += 4;
-                }
-                case 8 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter == secondParameter ? 1 : 0;
-                    position += 4;
-                }
-                case 9 -> {
-                    firstParameter = getParameter(position, 1);
-                    relativeBase += firstParameter;
-                    position += 2;
-                }
-                default -> throw new IllegalStateException("unknown opcode: " + opcode);
-            }
-            halted = program[position] == 99;
-        }
-    }
-
-    private int getOpcode(int position) {
-        return (int) (program[position] % 100);
-    }
-
-    private double getParameter(int positionInstruction, int index) {
-        return program[getPosition(positionInstruction, index)];
-    }
-
-    private int getPosition(int positionInstruction, int index) {
-        int instruction = (int) program[positionInstruction];
-        int mode = (int) ((instruction / (10 * (int) Math.pow(10, index))) % 10);
-        return switch (Mode.of(mode)) {
-            case MODE_IMMEDIATE -> positionInstruction + index;
-            case MODE_POSITION -> (int) program[positionInstruction + index];
-            case MODE_RELATIVE -> (int) (program[positionInstruction + index] + relativeBase);
-            default -> throw new IllegalStateException("unknown mode: " + mode);
-        };
-    }
-}
-
 public class Day_13 {
 
     final static String DEFAULT_FILENAME = new Object() {
@@ -176,35 +29,52 @@ public class Day_13 {
 
         // part 1
         System.out.println("\npart 1: ");
-        double[] intCodeProgram = Arrays.stream(input.split(","))
-                .mapToDouble(Double::valueOf)
+        long[] intCodeProgram = Arrays.stream(input.split(","))
+                .mapToLong(Long::valueOf)
                 .toArray();
 
-        IntcodeV6 intcode = new IntcodeV6.IntcodeV6Builder()
+        int blocks = countBlocks(intCodeProgram);
+        System.out.println("blocks = " + blocks);
+        System.out.println();
+
+        LocalTime finish = LocalTime.now();
+        System.out.println("duration (ms): " + Duration.between(start, finish).toMillis());
+
+        // part 2
+        start = LocalTime.now();
+        System.out.println("\npart 2: ");
+
+        GameResult gameResult = playGame(intCodeProgram, true);
+
+        System.out.println("\nscore = " + gameResult.getScore());
+        System.out.println("nrJoystickInstructions = " + gameResult.getNrJoystickInstructions());
+        finish = LocalTime.now();
+        System.out.println("duration (ms): " + Duration.between(start, finish).toMillis());
+    }
+
+    static int countBlocks(long[] intCodeProgram) {
+        IntcodeComputer intcode = new IntcodeComputer.IntcodeComputerBuilder()
                 .program(intCodeProgram)
                 .build();
         intcode.run();
 
         int blocks = 0;
         while (intcode.hasOutput()) {
-            int x = intcode.getOutput();
-            int y = intcode.getOutput();
-            Tile tile = of(intcode.getOutput());
+            int x = (int) intcode.getOutput();
+            int y = (int) intcode.getOutput();
+            Tile tile = of((int) intcode.getOutput());
             if (tile == BLOCK) {
                 blocks++;
             }
         }
-        System.out.println("blocks = " + blocks);
-        System.out.println();
-
-        LocalTime finish = LocalTime.now();
-        System.out.println("duration (ms): " + Duration.between(start, finish).toMillis());
-
-        // part 2
-        start = LocalTime.now();
-        System.out.println("\npart 2: ");
+        return blocks;
+    }
 
-        intcode = new IntcodeV6.IntcodeV6Builder()
+    /**
+     * Play the game until all blocks are broken, the paddle follows the ball.
+     */
+    static GameResult playGame(long[] intCodeProgram, boolean printScreen) {
+        IntcodeComputer intcode = new IntcodeComputer.IntcodeComputerBuilder()
                 .program(intCodeProgram)
                 .build();
         intcode.setMemoryZeroValue(2);
@@ -221,12 +91,12 @@ public class Day_13 {
         while (!intcode.isHalted()) {
             intcode.run();
             while (intcode.hasOutput()) {
-                int x = intcode.getOutput();
-                int y = intcode.getOutput();
+                int x = (int) intcode.getOutput();
+                int y = (int) intcode.getOutput();
                 if (x == -1 && y == 0) {
                     score = intcode.getOutput();
                 } else {
-                    Tile tile = Tile.of(intcode.getOutput());
+                    Tile tile = Tile.of((int) intcode.getOutput());
                     if (tile == Tile.BALL) {
                         ballLocation = new Point(x, y);
                         screen[x][y] = Tile.EMPTY;
@@ -237,7 +107,9 @@ public class Day_13 {
                     screen[x][y] = tile;
                 }
             }
-            printScreen(screen, ballLocation);
+            if (printScreen) {
+                printScreen(screen, ballLocation);
+            }
 
             if (intcode.isWaitingForInput()) {
                 JoystickMode joystickMode = JOYSTICK_NEUTRAL;
@@ -255,14 +127,9 @@ public class Day_13 {
                 }
                 intcode.addInput(joystickMode.getValue());
             }
-
             nrJoystickInstructions++;
         }
-
-        System.out.println("\nscore = " + score);
-        System.out.println("nrJoystickInstructions = " + nrJoystickInstructions);
-        finish = LocalTime.now();
-        System.out.println("duration (ms): " + Duration.between(start, finish).toMillis());
+        return new GameResult(score, nrJoystickInstructions);
     }
 
     private static void printScreen(Tile[][] screen, Point ballLocation) {
@@ -323,6 +190,13 @@ enum Tile {
     }
 }
 
+@Data
+@AllArgsConstructor
+class GameResult {
+    private final long score;
+    private final int nrJoystickInstructions;
+}
+
 enum JoystickMode {
     JOYSTICK_NEUTRAL,
     JOYSTICK_LEFT,
@@ -69,7 +69,7 @@ public class Day_14 {
         }
     }
 
-    private static List<Reaction> readReactionsFromInput(List<String> input) {
+    static List<Reaction> readReactionsFromInput(List<String> input) {
         return input.stream()
                 .filter(l -> l.trim().length() > 0)
                 .map(line -> {
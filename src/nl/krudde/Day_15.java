@@ -1,7 +1,6 @@
 package nl.krudde;
 
 import lombok.AllArgsConstructor;
-import lombok.Builder;
 import lombok.Data;
 import lombok.Getter;
 
@@ -15,154 +14,9 @@ import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static java.util.stream.Collectors.toList;
-import static java.util.stream.Collectors.toMap;
 import static nl.krudde.MapCoordinateStatus.OPEN;
 import static nl.krudde.MapCoordinateStatus.WALL;
 
-@Data
-@Builder
-class IntcodeV7 {
-    private double[] program;
-    private int position;
-    private int relativeBase;
-
-    @Builder.Default
-    private boolean halted = false;
-    @Builder.Default
-    boolean waitingForInput = false;
-    @Builder.Default
-    private Queue<Integer> input = new LinkedList<>();
-    @Builder.Default
-    private Queue<Integer> output = new LinkedList<>();
-    @Builder.Default
-    private boolean initialised = false;
-
-    public void addInput(Integer input) {
-        this.input.add(input);
-        waitingForInput = false;
-    }
-
-    public boolean hasOutput() {
-        return !output.isEmpty();
-    }
-
-    public int getOutput() {
-        return output.remove();
-    }
-
-    public void setMemoryZeroValue(int value) {
-        program[0] = value;
-    }
-
-    public void run() {
-        int opcode;
-        double firstParameter, secondParameter;
-
-        if (!initialised) {
-            double[] inputProgram = program;
-            // make space for 256K memory above the program
-            program = new double[program.length + 256 * 1024];
-            // copy the program
-            System.arraycopy(inputProgram, 0, program, 0, inputProgram.length);
-            initialised = true;
-        }
-
-        while (!halted && !waitingForInput) {
-            opcode = getOpcode(position);
-            switch (opcode) {
-                case 1 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter + secondParameter;
-                    position += 4;
-                }
-                case 2 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter * secondParameter;
-                    position += 4;
-                }
-                case 3 -> {
-                    if (input.peek() == null) {
-                        waitingForInput = true;
-                    } else {
-                        waitingForInput = false;
-
-                        int writePosition = getPosition(position, 1);
-                        program[writePosition] = input.remove();
-                        position += 2;
-                    }
-                }
-                case 4 -> {
-                    firstParameter = getParameter(position, 1);
-                    output.add((int) firstParameter);
-                    position += 2;
-                }
-                case 5 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    if (firstParameter != 0) {
-                        position = (int) secondParameter;
-                    } else {
-                        position += 3;
-                    }
-                }
-                case 6 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    if (firstParameter == 0) {
-                        position = (int) secondParameter;
-                    } else {
-                        position += 3;
-                    }
-                }
-                case 7 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter < secondParameter ? 1 : 0;
-                    position += 4;
-                }
-                case 8 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter == secondParameter ? 1 : 0;
-                    position += 4;
-                }
-                case 9 -> {
-                    firstParameter = getParameter(position, 1);
-                    relativeBase += firstParameter;
-                    position += 2;
-                }
-                default -> throw new IllegalStateException("unknown opcode: " + opcode);
-            }
-            halted = program[position] == 99;
-        }
-    }
-
-    private int getOpcode(int position) {
-        return (int) (program[position] % 100);
-    }
-
-    private double getParameter(int positionInstruction, int index) {
-        return program[getPosition(positionInstruction, index)];
-    }
-
-    private int getPosition(int positionInstruction, int index) {
-        int instruction = (int) program[positionInstruction];
-        int mode = (int) ((instruction / (10 * (int) Math.pow(10, index))) % 10);
-        return switch (Mode.of(mode)) {
-            case MODE_IMMEDIATE -> positionInstruction + index;
-            case MODE_POSITION -> (int) program[positionInstruction + index];
-            case MODE_RELATIVE -> (int) (program[positionInstruction + index] + relativeBase);
-            default -> throw new IllegalStateException("unknown mode: " + mode);
-        };
-    }
-}
-
 public class Day_15 {
 
     final static String DEFAULT_FILENAME = new Object() {
@@ -175,11 +29,11 @@ public class Day_15 {
 
         // part 1
         System.out.println("\npart 1: ");
-        double[] intCodeProgram = Arrays.stream(input.split(","))
-                .mapToDouble(Double::valueOf)
+        long[] intCodeProgram = Arrays.stream(input.split(","))
+                .mapToLong(Long::valueOf)
                 .toArray();
 
-        IntcodeV7 intcode = new IntcodeV7.IntcodeV7Builder()
+        IntcodeComputer intcode = new IntcodeComputer.IntcodeComputerBuilder()
                 .program(intCodeProgram)
                 .build();
 
@@ -273,9 +127,9 @@ enum MapCoordinateStatus {
 
 @Data
 class RepairDroid {
-    private IntcodeV7 intcodeComputer;
+    private IntcodeComputer intcodeComputer;
 
-    Map<Point, MapCoordinateStatus> area = new TreeMap<>();
+    DenseGrid<MapCoordinateStatus> area = new DenseGrid<>(MapCoordinateStatus.class);
     Point start = new Point(0, 0);
 
     int moves = 0;
@@ -283,13 +137,19 @@ class RepairDroid {
     private Point oxygenLocation;
     private Point droidLocation = new Point(0, 0);
 
-    RepairDroid(IntcodeV7 intcodeComputer) {
+    // open cells of the area, made after exploring it
+    private int areaWidth;
+    private int areaHeight;
+    private boolean[] openArea;
+
+    RepairDroid(IntcodeComputer intcodeComputer) {
         this.intcodeComputer = intcodeComputer;
     }
 
     public void exploreArea() {
         area.put(start, OPEN);
         exploreArea(start);
+        indexArea();
         print();
         System.out.println("moves = " + moves);
     }
@@ -306,7 +166,7 @@ class RepairDroid {
         moves++;
         intcodeComputer.addInput(move.getValue());
         intcodeComputer.run();
-        RepairDroidStatus status = RepairDroidStatus.of(intcodeComputer.getOutput());
+        RepairDroidStatus status = RepairDroidStatus.of((int) intcodeComputer.getOutput());
         Point nextPoint = point.nextPoint(move);
 //        System.out.println("point = " + point + " move = " + move + " status = " + status);
         switch (status) {
@@ -344,11 +204,11 @@ class RepairDroid {
     }
 
     private void print() {
-        System.out.println("\nx: " + minX() + "->" + maxX() + " y: " + minY() + "->" + maxY() + "\n");
+        System.out.println("\nx: " + area.getMinX() + "->" + area.getMaxX() + " y: " + area.getMinY() + "->" + area.getMaxY() + "\n");
 
-        IntStream.rangeClosed(minY(), maxY())
+        IntStream.rangeClosed(area.getMinY(), area.getMaxY())
                 .forEach(y -> {
-                    IntStream.rangeClosed(minX(), maxX())
+                    IntStream.rangeClosed(area.getMinX(), area.getMaxX())
                             .forEach(x -> {
                                 Point p = new Point(x, y);
                                 if (p.equals(start)) {
@@ -367,105 +227,36 @@ class RepairDroid {
                 });
     }
 
-    private int minX() {
-        return area.keySet().stream()
-                .min(Comparator.comparingInt(Point::getX))
-                .orElseThrow(() -> new IllegalStateException("no min x"))
-                .getX();
-    }
-
-    private int maxX() {
-        return area.keySet().stream()
-                .max(Comparator.comparingInt(Point::getX))
-                .orElseThrow(() -> new IllegalStateException("no max x"))
-                .getX();
-    }
-
-    private int minY() {
-        return area.keySet().stream()
-                .min(Comparator.comparingInt(Point::getY))
-                .orElseThrow(() -> new IllegalStateException("no min y"))
-                .getY();
-    }
-
-    private int maxY() {
-        return area.keySet().stream()
-                .max(Comparator.comparingInt(Point::getY))
-                .orElseThrow(() -> new IllegalStateException("no max y"))
-                .getY();
-    }
-
     public int calculateShortestPathToOxygenLocation() {
         return calculateShortestPath(start, oxygenLocation);
     }
 
     private int calculateShortestPath(Point src, Point dst) {
-        // use the Dijkstra algorithm
-
-        // create a set with unvisited squares
-        Set<Point> unvisitedPoints = new HashSet<>(area.keySet());
-
-        // Map with points and (minimum) distance, initially "infinite"
-        Map<Point, Integer> mapPointWithDistance = unvisitedPoints.stream()
-                .collect(toMap(point -> point, point -> Integer.MAX_VALUE));
-        // set the distance for the destination to 0
-        mapPointWithDistance.put(dst, 0);
-
-        // start with destination
-        Point currentPoint = dst;
-        boolean reachedSource = false;
-
-        while (!unvisitedPoints.isEmpty() && !reachedSource) {
-            List<Point> freeNeighbours = getOpenNeighbourPoints(currentPoint).stream()
-                    .filter(point -> unvisitedPoints.contains(point))
-                    .collect(toList());
-
-            // update the distance to these neighbours if closer through this node
-            int currentDistanceToNeighbour = mapPointWithDistance.get(currentPoint) + 1;
-            freeNeighbours.stream()
-                    .forEach(fn -> {
-                        if (currentDistanceToNeighbour < mapPointWithDistance.get(fn)) {
-                            mapPointWithDistance.put(fn, currentDistanceToNeighbour);
-                        }
-                    });
-            // remove current point from unvisited set
-            unvisitedPoints.remove(currentPoint);
-
-            // check if we are done
-            if (currentPoint.equals(src)) {
-                reachedSource = true;
-            } else {
-                // set next best point
-                currentPoint = unvisitedPoints.stream()
-                        .min(Comparator.comparingInt(mapPointWithDistance::get))
-                        .orElse(null);
-            }
-        }
-        if (!reachedSource && unvisitedPoints.isEmpty()) {
-            // unreachable
-            return Integer.MAX_VALUE;
-        }
+        int distance = searchArea(src, dst).distance(index(dst));
+        return distance == GridSearch.UNREACHABLE ? Integer.MAX_VALUE : distance;
+    }
 
-        return mapPointWithDistance.get(src);
+    private GridSearch searchArea(Point src, Point dst) {
+        int target = dst == null ? GridSearch.NO_TARGET : index(dst);
+        return GridSearch.breadthFirst(openArea.length, index(src), target, GridSearch.gridEdges(areaWidth, areaHeight, openArea));
     }
 
-    private List<Point> getOpenNeighbourPoints(Point point) {
-        return Arrays.stream(Move.values())
-                .filter(move -> isOpenArea(point.nextPoint(move)))
-                .map(point::nextPoint)
-                .collect(Collectors.toList());
+    /**
+     * Open cells of the explored area for searching, cells are the cell indexes of the area.
+     */
+    private void indexArea() {
+        areaWidth = area.getCellsWidth();
+        areaHeight = area.getCellsHeight();
+        openArea = area.cellsMatching(OPEN::equals);
     }
 
-    private boolean isOpenArea(Point point) {
-        return area.containsKey(point) && area.get(point).equals(OPEN);
+    private int index(Point point) {
+        return area.cellIndex(point);
     }
 
     public int calculateMinutesToFillShipWithOxygen() {
-        return area.keySet().parallelStream()
-                .filter(point -> area.get(point).equals(OPEN))
-                .mapToInt(point -> calculateShortestPath(oxygenLocation, point))
-                .max()
-                .orElseThrow(() -> new IllegalStateException("no max"));
+        // the oxygen spreads one step per minute, so it takes as long as the farthest point is away
+        return searchArea(oxygenLocation, null).maxDistance();
     }
 }
 
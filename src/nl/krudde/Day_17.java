@@ -13,150 +13,6 @@ import java.util.stream.IntStream;
 import static java.util.stream.Collectors.toList;
 import static nl.krudde.Direction.*;
 
-@Data
-@Builder
-class IntcodeV8 {
-    private long[] program;
-    private int position;
-    private int relativeBase;
-
-    @Builder.Default
-    private boolean halted = false;
-    @Builder.Default
-    boolean waitingForInput = false;
-    @Builder.Default
-    private Queue<Integer> input = new LinkedList<>();
-    @Builder.Default
-    private Queue<Integer> output = new LinkedList<>();
-    @Builder.Default
-    private boolean initialised = false;
-
-    public void addInput(Integer input) {
-        this.input.add(input);
-        waitingForInput = false;
-    }
-
-    public boolean hasOutput() {
-        return !output.isEmpty();
-    }
-
-    public long getOutput() {
-        return output.remove();
-    }
-
-    public void setMemoryZeroValue(int value) {
-        program[0] = value;
-    }
-
-    public void run() {
-        int opcode;
-        long firstParameter, secondParameter;
-
-        if (!initialised) {
-            long[] inputProgram = program;
-            // make space for 256K memory above the program
-            program = new long[program.length + 256 * 1024];
-            // copy the program
-            System.arraycopy(inputProgram, 0, program, 0, inputProgram.length);
-            initialised = true;
-        }
-
-        while (!halted && !waitingForInput) {
-            opcode = getOpcode(position);
-            switch (opcode) {
-                case 1 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter + secondParameter;
-                    position += 4;
-                }
-                case 2 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter * secondParameter;
-                    position += 4;
-                }
-                case 3 -> {
-                    if (input.peek() == null) {
-                        waitingForInput = true;
-                    } else {
-                        waitingForInput = false;
-
-                        int writePosition = getPosition(position, 1);
-                        program[writePosition] = input.remove();
-                        position += 2;
-                    }
-                }
-                case 4 -> {
-                    firstParameter = getParameter(position, 1);
-                    output.add((int) firstParameter);
-                    position += 2;
-                }
-                case 5 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    if (firstParameter != 0) {
-                        position = (int) secondParameter;
-                    } else {
-                        position += 3;
-                    }
-                }
-                case 6 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    if (firstParameter == 0) {
-                        position = (int) secondParameter;
-                    } else {
-                        position += 3;
-                    }
-                }
-                case 7 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter < secondParameter ? 1 : 0;
-                    position += 4;
-                }
-                case 8 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter == secondParameter ? 1 : 0;
-                    position += 4;
-                }
-                case 9 -> {
-                    firstParameter = getParameter(position, 1);
-                    relativeBase += firstParameter;
-                    position += 2;
-                }
-                default -> throw new IllegalStateException("unknown opcode: " + opcode);
-            }
-            halted = program[position] == 99;
-        }
-    }
-
-    private int getOpcode(int position) {
-        return (int) (program[position] % 100);
-    }
-
-    private long getParameter(int positionInstruction, int index) {
-        return program[getPosition(positionInstruction, index)];
-    }
-
-    private int getPosition(int positionInstruction, int index) {
-        int instruction = (int) program[positionInstruction];
-        int mode = (int) ((instruction / (10 * (int) Math.pow(10, index))) % 10);
-        return switch (Mode.of(mode)) {
-            case MODE_IMMEDIATE -> positionInstruction + index;
-            case MODE_POSITION -> (int) program[positionInstruction + index];
-            case MODE_RELATIVE -> (int) (program[positionInstruction + index] + relativeBase);
-            default -> throw new IllegalStateException("unknown mode: " + mode);
-        };
-    }
-}
-
 public class Day_17 {
 
     final static String DEFAULT_FILENAME = new Object() {
@@ -173,7 +29,7 @@ public class Day_17 {
                 .mapToLong(Long::valueOf)
                 .toArray();
 
-        IntcodeV8 intcode = new IntcodeV8.IntcodeV8Builder()
+        IntcodeComputer intcode = new IntcodeComputer.IntcodeComputerBuilder()
                 .program(intCodeProgram)
                 .build();
 
@@ -191,7 +47,7 @@ public class Day_17 {
         start = LocalTime.now();
         System.out.println("\npart 2: ");
 
-        intcode = new IntcodeV8.IntcodeV8Builder()
+        intcode = new IntcodeComputer.IntcodeComputerBuilder()
                 .program(intCodeProgram)
                 .build();
         vacuumRobotComputer.setProgram(intcode);
@@ -243,14 +99,14 @@ enum MapCoordinateType {
 @Data
 class VacuumRobotComputer {
     @Setter
-    private IntcodeV8 program;
+    private IntcodeComputer program;
 
-    private Map<Point, MapCoordinateType> area = new TreeMap<>();
+    private DenseGrid<MapCoordinateType> area = new DenseGrid<>(MapCoordinateType.class);
 
     private Point vacuumRobotLocation;
     private Direction vacuumRobotDirection;
 
-    VacuumRobotComputer(IntcodeV8 program) {
+    VacuumRobotComputer(IntcodeComputer program) {
         this.program = program;
     }
 
@@ -289,19 +145,21 @@ class VacuumRobotComputer {
     }
 
     public List<Point> getIntersections() {
-        return area.entrySet().stream()
-                .filter(entry -> entry.getValue() == MapCoordinateType.SCAFFOLD)
-                .filter(entry -> isIntersection(entry.getKey()))
-                .map(Map.Entry::getKey)
-                .collect(toList());
+        List<Point> intersections = new ArrayList<>();
+        area.forEach((x, y, type) -> {
+            if (type == MapCoordinateType.SCAFFOLD && isIntersection(x, y)) {
+                intersections.add(new Point(x, y));
+            }
+        });
+        return intersections;
     }
 
     private void print() {
-        System.out.println("\nx: " + minX() + "->" + maxX() + " y: " + minY() + "->" + maxY() + "\n");
+        System.out.println("\nx: " + area.getMinX() + "->" + area.getMaxX() + " y: " + area.getMinY() + "->" + area.getMaxY() + "\n");
 
-        IntStream.rangeClosed(minY(), maxY())
+        IntStream.rangeClosed(area.getMinY(), area.getMaxY())
                 .forEach(y -> {
-                    IntStream.rangeClosed(minX(), maxX())
+                    IntStream.rangeClosed(area.getMinX(), area.getMaxX())
                             .forEach(x -> {
                                 Point p = new Point(x, y);
                                 if (p.equals(vacuumRobotLocation)) {
@@ -323,42 +181,16 @@ class VacuumRobotComputer {
                 });
     }
 
-    private int minX() {
-        return area.keySet().stream()
-                .min(Comparator.comparingInt(Point::getX))
-                .orElseThrow(() -> new IllegalStateException("no min x"))
-                .getX();
+    private boolean isIntersection(int x, int y) {
+        return isScaffold(x, y - 1) && isScaffold(x, y + 1) && isScaffold(x - 1, y) && isScaffold(x + 1, y);
     }
 
-    private int maxX() {
-        return area.keySet().stream()
-                .max(Comparator.comparingInt(Point::getX))
-                .orElseThrow(() -> new IllegalStateException("no max x"))
-                .getX();
-    }
-
-    private int minY() {
-        return area.keySet().stream()
-                .min(Comparator.comparingInt(Point::getY))
-                .orElseThrow(() -> new IllegalStateException("no min y"))
-                .getY();
-    }
-
-    private int maxY() {
-        return area.keySet().stream()
-                .max(Comparator.comparingInt(Point::getY))
-                .orElseThrow(() -> new IllegalStateException("no max y"))
-                .getY();
-    }
-
-    private boolean isIntersection(Point point) {
-        return Arrays.stream(values())
-                .filter(direction -> isScaffold(point.nextPoint(direction)))
-                .count() == 4;
+    private boolean isScaffold(int x, int y) {
+        return area.get(x, y) == MapCoordinateType.SCAFFOLD;
     }
 
     private boolean isScaffold(Point point) {
-        return area.containsKey(point) && area.get(point).equals(MapCoordinateType.SCAFFOLD);
+        return area.get(point) == MapCoordinateType.SCAFFOLD;
     }
 
     public int sumAlignmentParameters() {
@@ -372,9 +204,7 @@ class VacuumRobotComputer {
     }
 
     private int nrScaffolds() {
-        return (int) area.values().stream()
-                .filter(type -> type == MapCoordinateType.SCAFFOLD)
-                .count();
+        return area.count(MapCoordinateType.SCAFFOLD);
     }
 
     public List<String> determineSegments() {
@@ -450,17 +280,12 @@ class VacuumRobotComputer {
     }
 
     private void sendCommand(String command) {
-        (command + "\n").chars().boxed()
-                .forEach(i -> program.addInput(i));
+        program.addAsciiInput(command + "\n");
         program.run();
     }
 
     private String getOutput() {
-        StringBuilder stringBuilder = new StringBuilder();
-        while (program.hasOutput()) {
-            stringBuilder.append(Character.toString((int) program.getOutput()));
-        }
-        return stringBuilder.toString();
+        return program.getAsciiOutput();
     }
 
     private List<Long> getOutputAsLongs() {
@@ -11,13 +11,12 @@ import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static java.util.stream.Collectors.toList;
-import static java.util.stream.Collectors.toMap;
 import static nl.krudde.VaultFieldType.OPEN;
 import static nl.krudde.VaultFieldType.WALL;
 
@@ -98,12 +97,11 @@ enum VaultFieldType {
 
 @Data
 class UndergroundVault {
-    //    private final static int UNREACHABLE = Integer.MAX_VALUE;
-    private final static int UNREACHABLE = 999999;
-    Map<Point, VaultFieldType> area = new HashMap<>();
+    // only used inside the search, not all keys can be collected from a state
+    private final static int UNREACHABLE = Integer.MAX_VALUE;
+    DenseGrid<VaultFieldType> area = new DenseGrid<>(VaultFieldType.class);
     private Map<Point, Character> keys = new HashMap<>();
     private Map<Point, Character> doors = new HashMap<>();
-    private Map<String, Integer> cache = new ConcurrentHashMap<>();
     private Point entrance;
     // for part2
     private Point entranceUpperLeft;
@@ -143,13 +141,13 @@ class UndergroundVault {
     }
 
     private void print() {
-        System.out.println("\nx: " + minX() + "->" + maxX() + " y: " + minY() + "->" + maxY() + "\n");
+        System.out.println("\nx: " + area.getMinX() + "->" + area.getMaxX() + " y: " + area.getMinY() + "->" + area.getMaxY() + "\n");
 
-        IntStream.rangeClosed(minY(), maxY())
+        IntStream.rangeClosed(area.getMinY(), area.getMaxY())
                 .forEach(y -> {
-                    IntStream.rangeClosed(minX(), maxX())
+                    IntStream.rangeClosed(area.getMinX(), area.getMaxX())
                             .forEach(x -> {
-                                assert area.keySet().contains(new Point(x, y));
+                                assert area.containsKey(x, y);
                                 Point p = new Point(x, y);
                                 if (p.equals(entrance)) {
                                     System.out.print(VaultFieldType.ENTRANCE.getPrintCharacter());
@@ -165,152 +163,68 @@ class UndergroundVault {
                 });
     }
 
-    private int minX() {
-        return area.keySet().stream()
-                .min(Comparator.comparingInt(Point::getX))
-                .orElseThrow(() -> new IllegalStateException("no min x"))
-                .getX();
-    }
-
-    private int maxX() {
-        return area.keySet().stream()
-                .max(Comparator.comparingInt(Point::getX))
-                .orElseThrow(() -> new IllegalStateException("no max x"))
-                .getX();
-    }
-
-    private int minY() {
-        return area.keySet().stream()
-                .min(Comparator.comparingInt(Point::getY))
-                .orElseThrow(() -> new IllegalStateException("no min y"))
-                .getY();
-    }
-
-    private int maxY() {
-        return area.keySet().stream()
-                .max(Comparator.comparingInt(Point::getY))
-                .orElseThrow(() -> new IllegalStateException("no max y"))
-                .getY();
+    public long collectAllKeys() {
+        return collectAllKeys(entrance, doors, keys);
     }
 
-    private int calculateShortestPath(Point src, Point dst, Map<Point, Character> doors, Map<Point, Character> keys) {
-        return calculateDistanceMap(src, doors, keys).get(dst);
+    /**
+     * Search over the states (position, collected keys) on the precomputed key graph.
+     * The given doors stay locked until their key is collected, doors without a key in the given keys never open.
+     */
+    public long collectAllKeys(Point point, Map<Point, Character> doors, Map<Point, Character> keys) {
+        VaultKeyGraph keyGraph = new VaultKeyGraph(area, List.of(point), doors, keys);
+        return collectAllKeys(keyGraph, new int[]{keyGraph.startNode(0)});
     }
 
-    private Map<Point, Integer> calculateDistanceMap(Point src, Map<Point, Character> doors, Map<Point, Character> keys) {
-        // use the Dijkstra algorithm
-
-        // create a set with unvisited squares
-        Set<Point> unvisitedPoints = area.keySet().stream()
-                .filter(point -> !isWall(point))
-                .filter(point -> !doors.containsKey(point))
-                .collect(Collectors.toSet());
-
-        // for part 2: limit the unvisited points based on the quadrant
-        if (!src.equals(entrance)) {
-            //part 2
-            if(src.equals(entranceUpperLeft)){
-                unvisitedPoints.removeIf(point->!isUpperLeft(point));
-            }
-            if(src.equals(entranceUpperRight)){
-                unvisitedPoints.removeIf(point->!isUpperRight(point));
-            }
-            if(src.equals(entranceLowerLeft)){
-                unvisitedPoints.removeIf(point->!isLowerLeft(point));
-            }
-            if(src.equals(entranceLowerRight)){
-                unvisitedPoints.removeIf(point->!isLowerRight(point));
-            }
+    private int collectAllKeys(VaultKeyGraph keyGraph, int[] robotNodes) {
+        int nrSteps = collectAllKeys(keyGraph, robotNodes, 0, new LongIntMap());
+        if (nrSteps == UNREACHABLE) {
+            throw new IllegalStateException("no path to collect all keys");
         }
-
-        // Map with points and (minimum) distance, initially unreachable
-        Map<Point, Integer> mapPointWithDistance = unvisitedPoints.stream()
-                .collect(toMap(point -> point, point -> UNREACHABLE));
-        // set the distance for the source to 0
-        mapPointWithDistance.put(src, 0);
-
-        // start with source
-        Point currentPoint = src;
-
-        while (!unvisitedPoints.isEmpty()) {
-            List<Point> freeNeighbours = getOpenNeighbourPoints(currentPoint, doors).stream()
-                    .filter(point -> unvisitedPoints.contains(point))
-                    .collect(toList());
-
-            // update the distance to these neighbours if closer through this node
-            int currentDistanceToNeighbour = mapPointWithDistance.get(currentPoint) + 1;
-            freeNeighbours.stream()
-                    .forEach(fn -> {
-                        if (currentDistanceToNeighbour < mapPointWithDistance.get(fn)) {
-                            mapPointWithDistance.put(fn, currentDistanceToNeighbour);
-                        }
-                    });
-            // remove current point from unvisited set
-            unvisitedPoints.remove(currentPoint);
-
-            // set next best point
-            currentPoint = unvisitedPoints.stream()
-                    .min(Comparator.comparingInt(mapPointWithDistance::get))
-                    .orElse(null);
-        }
-
-//        System.out.println("src+dst+distance = " + src + "+" + dst + "=" + mapPointWithDistance.get(src));
-        return mapPointWithDistance;
-    }
-
-    private List<Point> getOpenNeighbourPoints(Point point, Map<Point, Character> doors) {
-        List<Point> points = Arrays.stream(Move.values())
-                .map(point::nextPoint)
-                .filter(p -> !isWall(p))
-                .filter(p -> !doors.keySet().contains(p))
-                .collect(Collectors.toList());
-
-        return points;
-    }
-
-    private boolean isWall(Point point) {
-        return area.containsKey(point) && area.get(point).equals(WALL);
-    }
-
-    public long collectAllKeys() {
-        return collectAllKeys(entrance, doors, keys);
+        return nrSteps;
     }
 
-    public long collectAllKeys(Point point, Map<Point, Character> doors, Map<Point, Character> keys) {
-        if (keys.size() == 0) {
+    /**
+     * @param robotNodes the node of every robot, robots take turns collecting one key at a time
+     */
+    private int collectAllKeys(VaultKeyGraph keyGraph, int[] robotNodes, int collectedKeys, LongIntMap cache) {
+        if (collectedKeys == keyGraph.getAllKeys()) {
             // apparantly we got all keys
             return 0;
         }
 
-        // check our cache (order of keys and doors does not matter)
-        String cacheKey = cacheKey(point, doors, keys);
-        if (cache.containsKey(cacheKey)) {
-            return cache.get(cacheKey);
+        // every node fits in 6 bits, for at most 4 robots the collected keys fit in the bits above
+        long state = collectedKeys;
+        for (int node : robotNodes) {
+            state = state << 6 | node;
+        }
+        int cachedNrSteps = cache.getOrDefault(state, -1);
+        if (cachedNrSteps >= 0) {
+            return cachedNrSteps;
         }
 
-        Map<Point, Integer> reachableKeys = calculateDistanceMap(point, doors, keys);
-        reachableKeys.entrySet().removeIf(entry -> !keys.containsKey(entry.getKey()));
-        reachableKeys.entrySet().removeIf(entry -> entry.getValue() == UNREACHABLE);
-
-        // try all reachable keys
-        long nrSteps = reachableKeys.entrySet().parallelStream()
-                .mapToLong(entry -> {
-                    Map<Point, Character> newDoors = new HashMap<>(doors);
-                    newDoors.values().remove(Character.toUpperCase(keys.get(entry.getKey())));
-                    Map<Point, Character> newKeys = new HashMap<>(keys);
-                    newKeys.remove(entry.getKey());
-                    return entry.getValue() + collectAllKeys(entry.getKey(), newDoors, newKeys);
-                })
-                .min()
-                .orElse(UNREACHABLE);
-
-        cache.put(cacheKey, (int) nrSteps);
-//        System.out.println("#cache=" + cache.size() + " " + point + " #D=" + doors.size() + " #K=" + keys.size());
-        return nrSteps;
-    }
+        int nrSteps = UNREACHABLE;
+        for (int robot = 0; robot < robotNodes.length; robot++) {
+            int node = robotNodes[robot];
+            for (int key = 0; key < VaultKeyGraph.NR_KEYS; key++) {
+                if ((collectedKeys & 1 << key) != 0 || !keyGraph.isReachable(node, key)) {
+                    continue;
+                }
+                // skip keys behind a locked door, or behind another key which is then collected first anyway
+                if (((keyGraph.requiredDoors(node, key) | keyGraph.keysOnPath(node, key)) & ~collectedKeys) != 0) {
+                    continue;
+                }
+                robotNodes[robot] = key;
+                int nrStepsAfterKey = collectAllKeys(keyGraph, robotNodes, collectedKeys | 1 << key, cache);
+                robotNodes[robot] = node;
+                if (nrStepsAfterKey != UNREACHABLE) {
+                    nrSteps = Math.min(nrSteps, keyGraph.distance(node, key) + nrStepsAfterKey);
+                }
+            }
+        }
 
-    private String cacheKey(Point point, Map<Point, Character> doors, Map<Point, Character> keys) {
-        return point.toString() + doors.toString() + keys.toString();
+        cache.put(state, nrSteps);
+        return nrSteps;
     }
 
     public void fixMapForPart2() {
@@ -326,87 +240,134 @@ class UndergroundVault {
         entranceLowerRight = entrance.nextPoint(Direction.D).nextPoint(Direction.R);
     }
 
+    /**
+     * The four robots are searched jointly: a robot may need a key from another quadrant before it can pass a door.
+     */
     public long collectAllKeysPart2() {
-        // calculate per quadrant, ignore doors from other quadrants, will be opened by other robots in the other quadrants
-
-        long upperLeftSteps = getUpperLeftSteps();
-        System.out.println("upperLeftSteps = " + upperLeftSteps);
-
-        long upperRightSteps = getUpperRightSteps();
-        System.out.println("upperRightSteps = " + upperRightSteps);
-
-        long lowerLeftSteps = getLowerLeftSteps();
-        System.out.println("lowerLeftSteps = " + lowerLeftSteps);
-
-        long lowerRightSteps = getLowerRightSteps();
-        System.out.println("lowerRightSteps = " + lowerRightSteps);
-
-        return upperLeftSteps + upperRightSteps + lowerLeftSteps + lowerRightSteps;
+        List<Point> robots = List.of(entranceUpperLeft, entranceUpperRight, entranceLowerLeft, entranceLowerRight);
+        VaultKeyGraph keyGraph = new VaultKeyGraph(area, robots, doors, keys);
+        int[] robotNodes = IntStream.range(0, robots.size())
+                .map(keyGraph::startNode)
+                .toArray();
+        return collectAllKeys(keyGraph, robotNodes);
     }
+}
 
-    private boolean isUpperLeft(Point point) {
-        return point.getX() < entrance.getX() && point.getY() < entrance.getY();
+/**
+ * The keys of a vault as a graph: the distance from every key and start position to every key,
+ * with the doors and the other keys on the way as bit masks (bit 0 is a/A).
+ * Calculated once with a breadth first {@link GridSearch} per node on a dense copy of the area.
+ * The start positions may be in separate areas (the quadrants of part 2), every area is calculated as a separate
+ * task on a ForkJoinPool.
+ */
+class VaultKeyGraph {
+    static final int NR_KEYS = 26;
+    private static final int NONE = -1;
+
+    private final int width;
+    private final int height;
+    // cells are the dense cell indexes of the area
+    private final boolean[] open;
+    // letter index of the key/door on a cell, or NONE
+    private final int[] keyAt;
+    private final int[] doorAt;
+    // cell of every key by letter index
+    private final int[] keyCells = new int[NR_KEYS];
+
+    // nodes are the keys by letter index, followed by the start positions; distance NONE is unreachable
+    private final int[][] distances;
+    private final int[][] requiredDoors;
+    private final int[][] keysOnPath;
+    @Getter
+    private final int allKeys;
+
+    VaultKeyGraph(DenseGrid<VaultFieldType> area, List<Point> starts, Map<Point, Character> doors, Map<Point, Character> keys) {
+        width = area.getCellsWidth();
+        height = area.getCellsHeight();
+        open = area.cellsMatching(type -> type != WALL);
+        keyAt = new int[open.length];
+        doorAt = new int[open.length];
+        Arrays.fill(keyAt, NONE);
+        Arrays.fill(doorAt, NONE);
+
+        allKeys = keys.values().stream()
+                .mapToInt(key -> 1 << letterIndex(key))
+                .reduce(0, (a, b) -> a | b);
+        keys.forEach((point, key) -> {
+            keyAt[area.cellIndex(point)] = letterIndex(key);
+            keyCells[letterIndex(key)] = area.cellIndex(point);
+        });
+        doors.forEach((point, door) -> {
+            if ((allKeys & 1 << letterIndex(door)) != 0) {
+                doorAt[area.cellIndex(point)] = letterIndex(door);
+            } else {
+                // no key for this door
+                open[area.cellIndex(point)] = false;
+            }
+        });
+
+        int nrNodes = NR_KEYS + starts.size();
+        distances = new int[nrNodes][NR_KEYS];
+        requiredDoors = new int[nrNodes][NR_KEYS];
+        keysOnPath = new int[nrNodes][NR_KEYS];
+        Arrays.stream(distances).forEach(row -> Arrays.fill(row, NONE));
+
+        // every task only fills the rows of the nodes in its own area
+        List<ForkJoinTask<?>> areaTasks = IntStream.range(0, starts.size())
+                .mapToObj(i -> ForkJoinPool.commonPool().submit(() -> calculateEdgesOfArea(startNode(i), area.cellIndex(starts.get(i)))))
+                .collect(toList());
+        areaTasks.forEach(ForkJoinTask::join);
     }
 
-    private boolean isUpperRight(Point point) {
-        return point.getX() > entrance.getX() && point.getY() < entrance.getY();
+    int startNode(int i) {
+        return NR_KEYS + i;
     }
 
-    private boolean isLowerLeft(Point point) {
-        return point.getX() < entrance.getX() && point.getY() > entrance.getY();
+    boolean isReachable(int node, int key) {
+        return distances[node][key] != NONE;
     }
 
-    private boolean isLowerRight(Point point) {
-        return point.getX() > entrance.getX() && point.getY() > entrance.getY();
+    int distance(int node, int key) {
+        return distances[node][key];
     }
 
-    private long getLowerRightSteps() {
-        cache.clear();
-        Map<Point, Character> keysLowerRight = new HashMap<>(keys);
-        keysLowerRight.entrySet().removeIf(entry -> !isLowerRight(entry.getKey()));
-
-        Map<Point, Character> doorsLowerRight = new HashMap<>(doors);
-        doorsLowerRight.entrySet().removeIf(entry -> !isLowerRight(entry.getKey()));
-        doorsLowerRight.entrySet().removeIf(entry -> !keysLowerRight.containsValue(Character.toLowerCase(entry.getValue())));
-
-        return collectAllKeys(entranceLowerRight, doorsLowerRight, keysLowerRight);
+    int requiredDoors(int node, int key) {
+        return requiredDoors[node][key];
     }
 
-    private long getLowerLeftSteps() {
-        cache.clear();
-        Map<Point, Character> keysLowerLeft = new HashMap<>(keys);
-        keysLowerLeft.entrySet().removeIf(entry -> !isLowerLeft(entry.getKey()));
-
-        Map<Point, Character> doorsLowerLeft = new HashMap<>(doors);
-        doorsLowerLeft.entrySet().removeIf(entry -> !isLowerLeft(entry.getKey()));
-        doorsLowerLeft.entrySet().removeIf(entry -> !keysLowerLeft.containsValue(Character.toLowerCase(entry.getValue())));
-
-        return collectAllKeys(entranceLowerLeft, doorsLowerLeft, keysLowerLeft);
+    int keysOnPath(int node, int key) {
+        return keysOnPath[node][key];
     }
 
-    private long getUpperLeftSteps() {
-        cache.clear();
-        Map<Point, Character> keysUpperLeft = new HashMap<>(keys);
-        keysUpperLeft.entrySet().removeIf(entry -> !isUpperLeft(entry.getKey()));
-
-        Map<Point, Character> doorsUpperLeft = new HashMap<>(doors);
-        doorsUpperLeft.entrySet().removeIf(entry -> !isUpperLeft(entry.getKey()));
-        doorsUpperLeft.entrySet().removeIf(entry -> !keysUpperLeft.containsValue(Character.toLowerCase(entry.getValue())));
-
-        return collectAllKeys(entranceUpperLeft, doorsUpperLeft, keysUpperLeft);
+    private void calculateEdgesOfArea(int startNode, int start) {
+        calculateEdges(startNode, start);
+        for (int key = 0; key < NR_KEYS; key++) {
+            if (isReachable(startNode, key)) {
+                calculateEdges(key, keyCells[key]);
+            }
+        }
     }
 
-    private long getUpperRightSteps() {
-        cache.clear();
-        Map<Point, Character> keysUpperRight = new HashMap<>(keys);
-        keysUpperRight.entrySet().removeIf(entry -> !isUpperRight(entry.getKey()));
-
-        Map<Point, Character> doorsUpperRight = new HashMap<>(doors);
-        doorsUpperRight.entrySet().removeIf(entry -> !isUpperRight(entry.getKey()));
-        doorsUpperRight.entrySet().removeIf(entry -> !keysUpperRight.containsValue(Character.toLowerCase(entry.getValue())));
+    private void calculateEdges(int node, int origin) {
+        GridSearch search = GridSearch.breadthFirst(open.length, origin, GridSearch.NO_TARGET, GridSearch.gridEdges(width, height, open));
+
+        // the doors and keys on the way follow the search tree, parents are always visited before their children
+        int[] doorMask = new int[open.length];
+        int[] keyMask = new int[open.length];
+        for (int i = 1; i < search.nrVisited(); i++) {
+            int cell = search.visited(i);
+            int parent = search.parent(cell);
+            doorMask[cell] = doorAt[cell] == NONE ? doorMask[parent] : doorMask[parent] | 1 << doorAt[cell];
+            keyMask[cell] = keyAt[parent] == NONE || parent == origin ? keyMask[parent] : keyMask[parent] | 1 << keyAt[parent];
+            if (keyAt[cell] != NONE) {
+                distances[node][keyAt[cell]] = search.distance(cell);
+                requiredDoors[node][keyAt[cell]] = doorMask[cell];
+                keysOnPath[node][keyAt[cell]] = keyMask[cell];
+            }
+        }
+    }
 
-        return collectAllKeys(entranceUpperRight, doorsUpperRight, keysUpperRight);
+    private static int letterIndex(char c) {
+        return Character.toLowerCase(c) - 'a';
     }
 }
-
-
@@ -1,8 +1,6 @@
 package nl.krudde;
 
 import lombok.AllArgsConstructor;
-import lombok.Builder;
-import lombok.Data;
 import lombok.Getter;
 
 import java.io.IOException;
@@ -11,156 +9,10 @@ import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalTime;
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
 
 import static java.util.stream.Collectors.toList;
 
-@Data
-@Builder
-class IntcodeV9 {
-    private double[] program;
-    private int position;
-    private int relativeBase;
-
-    @Builder.Default
-    private boolean halted = false;
-    @Builder.Default
-    boolean waitingForInput = false;
-    @Builder.Default
-    private Queue<Integer> input = new LinkedList<>();
-    @Builder.Default
-    private Queue<Integer> output = new LinkedList<>();
-    @Builder.Default
-    private boolean initialised = false;
-
-    public void addInput(Integer input) {
-        this.input.add(input);
-        waitingForInput = false;
-    }
-
-    public boolean hasOutput() {
-        return !output.isEmpty();
-    }
-
-    public int getOutput() {
-        return output.remove();
-    }
-
-    public void setMemoryZeroValue(int value) {
-        program[0] = value;
-    }
-
-    public void run() {
-        int opcode;
-        double firstParameter, secondParameter;
-
-        if (!initialised) {
-            double[] inputProgram = program;
-            // make space for 256K memory above the program
-            program = new double[program.length + 256 * 1024];
-            // copy the program
-            System.arraycopy(inputProgram, 0, program, 0, inputProgram.length);
-            initialised = true;
-        }
-
-        while (!halted && !waitingForInput) {
-            opcode = getOpcode(position);
-            switch (opcode) {
-                case 1 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter + secondParameter;
-                    position += 4;
-                }
-                case 2 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter * secondParameter;
-                    position += 4;
-                }
-                case 3 -> {
-                    if (input.peek() == null) {
-                        waitingForInput = true;
-                    } else {
-                        waitingForInput = false;
-
-                        int writePosition = getPosition(position, 1);
-                        program[writePosition] = input.remove();
-                        position += 2;
-                    }
-                }
-                case 4 -> {
-                    firstParameter = getParameter(position, 1);
-                    output.add((int) firstParameter);
-                    position += 2;
-                }
-                case 5 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    if (firstParameter != 0) {
-                        position = (int) secondParameter;
-                    } else {
-                        position += 3;
-                    }
-                }
-                case 6 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    if (firstParameter == 0) {
-                        position = (int) secondParameter;
-                    } else {
-                        position += 3;
-                    }
-                }
-                case 7 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter < secondParameter ? 1 : 0;
-                    position += 4;
-                }
-                case 8 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter == secondParameter ? 1 : 0;
-                    position += 4;
-                }
-                case 9 -> {
-                    firstParameter = getParameter(position, 1);
-                    relativeBase += firstParameter;
-                    position += 2;
-                }
-                default -> throw new IllegalStateException("unknown opcode: " + opcode);
-            }
-            halted = program[position] == 99;
-        }
-    }
-
-    private int getOpcode(int position) {
-        return (int) (program[position] % 100);
-    }
-
-    private double getParameter(int positionInstruction, int index) {
-        return program[getPosition(positionInstruction, index)];
-    }
-
-    private int getPosition(int positionInstruction, int index) {
-        int instruction = (int) program[positionInstruction];
-        int mode = (int) ((instruction / (10 * (int) Math.pow(10, index))) % 10);
-        return switch (Mode.of(mode)) {
-            case MODE_IMMEDIATE -> positionInstruction + index;
-            case MODE_POSITION -> (int) program[positionInstruction + index];
-            case MODE_RELATIVE -> (int) (program[positionInstruction + index] + relativeBase);
-            default -> throw new IllegalStateException("unknown mode: " + mode);
-        };
-    }
-}
-
 public class Day_19 {
 
     final static String DEFAULT_FILENAME = new Object() {
@@ -174,30 +26,12 @@ public class Day_19 {
 
         // part 1
         System.out.println("\npart 1: ");
-        double[] intCodeProgram = Arrays.stream(input.split(","))
-                .mapToDouble(Double::valueOf)
+        long[] intCodeProgram = Arrays.stream(input.split(","))
+                .mapToLong(Long::valueOf)
                 .toArray();
 
-        IntcodeV9 intcode;
-        int gridSize = 50;
-        int[][] grid = new int[gridSize][gridSize];
-        int nrPointsAffected = 0;
-        for (int x = 0; x < gridSize; x++) {
-            for (int y = 0; y < gridSize; y++) {
-                intcode = new IntcodeV9.IntcodeV9Builder()
-                        .program(intCodeProgram)
-                        .build();
-                intcode.addInput(x);
-                intcode.addInput(y);
-                intcode.run();
-                int output = intcode.getOutput();
-                grid[x][y] = output;
-                if (output == 1) {
-                    nrPointsAffected++;
-                }
-            }
-        }
-//        print(grid);
+        IntcodeComputer bootedDrone = bootDrone(intCodeProgram);
+        int nrPointsAffected = nrPointsAffected(bootedDrone, 50);
         System.out.println("nrPointsAffected = " + nrPointsAffected);
 
         System.out.println();
@@ -209,7 +43,41 @@ public class Day_19 {
         start = LocalTime.now();
         System.out.println("\npart 2: ");
 
-        boolean found = false;
+        int result = findSquare(bootedDrone);
+        System.out.println("FOUND!! upperLeftx * 10000 + y = " + result);
+
+        finish = LocalTime.now();
+        System.out.println("duration (ms): " + Duration.between(start, finish).toMillis());
+    }
+
+    /**
+     * Boot the drone program once, every probe forks it.
+     */
+    static IntcodeComputer bootDrone(long[] intCodeProgram) {
+        IntcodeComputer bootedDrone = new IntcodeComputer.IntcodeComputerBuilder()
+                .program(intCodeProgram)
+                .compiled(true)
+                .build();
+        bootedDrone.run();
+        return bootedDrone;
+    }
+
+    static int nrPointsAffected(IntcodeComputer bootedDrone, int gridSize) {
+        int nrPointsAffected = 0;
+        for (int x = 0; x < gridSize; x++) {
+            for (int y = 0; y < gridSize; y++) {
+                if (getOutput(bootedDrone, x, y) == 1) {
+                    nrPointsAffected++;
+                }
+            }
+        }
+        return nrPointsAffected;
+    }
+
+    /**
+     * @return x * 10000 + y of the upper left corner of the first 100x100 square in the beam
+     */
+    static int findSquare(IntcodeComputer bootedDrone) {
         int minX = 4;
         int maxX = 4;
         int x = minX;
@@ -219,15 +87,15 @@ public class Day_19 {
         // by following the upper left and right edges
         // define rectangle, use upper left as base point
         // check for 100x100 by checking lower left/right
-        while (!found) {
+        while (true) {
             // find horizontal start
-            while (getOutput(intCodeProgram, x, y) == 0) {
+            while (getOutput(bootedDrone, x, y) == 0) {
                 x++;
                 minX++;
             }
             // find horizontal end
             x = maxX;
-            while (getOutput(intCodeProgram, x, y) == 1) {
+            while (getOutput(bootedDrone, x, y) == 1) {
                 x++;
                 maxX++;
             }
@@ -235,9 +103,8 @@ public class Day_19 {
             if (length >= 200) {
                 // move right and check for rectangle
                 for (int upperLeftx = minX; upperLeftx < maxX - 99; upperLeftx++) {
-                    if (getOutput(intCodeProgram, upperLeftx, y + 99) == 1 && getOutput(intCodeProgram, upperLeftx + 99, y + 99) == 1) {
-                        System.out.println("FOUND!! upperLeftx * 10000 + y = " + (upperLeftx * 10000 + y));
-                        found = true;
+                    if (getOutput(bootedDrone, upperLeftx, y + 99) == 1 && getOutput(bootedDrone, upperLeftx + 99, y + 99) == 1) {
+                        return upperLeftx * 10000 + y;
                     }
                 }
             }
@@ -245,20 +112,14 @@ public class Day_19 {
             y++;
             x = minX;
         }
-
-        finish = LocalTime.now();
-        System.out.println("duration (ms): " + Duration.between(start, finish).toMillis());
     }
 
-    private static int getOutput(double[] intCodeProgram, int x, int y) {
-        IntcodeV9 intcode;
-        intcode = new IntcodeV9.IntcodeV9Builder()
-                .program(intCodeProgram)
-                .build();
+    private static int getOutput(IntcodeComputer bootedDrone, int x, int y) {
+        IntcodeComputer intcode = bootedDrone.fork();
         intcode.addInput(x);
         intcode.addInput(y);
         intcode.run();
-        return intcode.getOutput();
+        return (int) intcode.getOutput();
     }
 
     private static int sumRow(int[][] grid, int y) {
@@ -13,7 +13,6 @@ import java.util.stream.IntStream;
 
 import static java.util.stream.Collectors.*;
 import static nl.krudde.DonutMazeFieldType.OPEN;
-import static nl.krudde.DonutMazeFieldType.WALL;
 
 @Data
 @Builder
@@ -73,13 +72,20 @@ public class Day_20 {
 
 @Data
 class DonutMaze {
-    //    private final static int UNREACHABLE = Integer.MAX_VALUE;
-    private final static int UNREACHABLE = 999999;
-    Map<Point, DonutMazeFieldType> area = new HashMap<>();
+    // the deepest level searched when there is no path at all
+    private final static int MAX_RECURSION_LEVEL = 1 << 12;
+    private final static int NONE = -1;
+    DenseGrid<DonutMazeFieldType> area = new DenseGrid<>(DonutMazeFieldType.class);
     private Point entrance;
     private Point exit;
     Map<Point, Point> portals = new HashMap<>();
 
+    // dense copy of the area for searching, cells are the cell indexes of the area
+    private int width;
+    private int height;
+    private boolean[] open;
+    private int[] portalTargets;
+
     DonutMaze(List<String> input) {
         Map<Point, String> labels = new HashMap<>();
 
@@ -151,175 +157,120 @@ class DonutMaze {
         mapLabels.values().stream()
                 .forEach(entry -> portals.put(entry.get(1), entry.get(0)));
 
+        width = area.getCellsWidth();
+        height = area.getCellsHeight();
+        open = area.cellsMatching(OPEN::equals);
+        portalTargets = new int[open.length];
+        Arrays.fill(portalTargets, NONE);
+        portals.forEach((point, target) -> portalTargets[index(point)] = index(target));
+
 //        print();
     }
 
     private void print() {
-        System.out.println("\nx: " + minX() + "->" + maxX() + " y: " + minY() + "->" + maxY() + "\n");
+        System.out.println("\nx: " + area.getMinX() + "->" + area.getMaxX() + " y: " + area.getMinY() + "->" + area.getMaxY() + "\n");
 
-        IntStream.rangeClosed(minY(), maxY())
+        IntStream.rangeClosed(area.getMinY(), area.getMaxY())
                 .forEach(y -> {
-                    IntStream.rangeClosed(minX(), maxX())
+                    IntStream.rangeClosed(area.getMinX(), area.getMaxX())
                             .forEach(x -> {
-                                System.out.print(area.get(new Point(x, y)).getPrintCharacter());
+                                System.out.print(area.get(x, y).getPrintCharacter());
                             });
                     System.out.println();
                 });
     }
 
-    private int minX() {
-        return area.keySet().stream()
-                .min(Comparator.comparingInt(Point::getX))
-                .orElseThrow(() -> new IllegalStateException("no min x"))
-                .getX();
-    }
-
-    private int maxX() {
-        return area.keySet().stream()
-                .max(Comparator.comparingInt(Point::getX))
-                .orElseThrow(() -> new IllegalStateException("no max x"))
-                .getX();
-    }
-
-    private int minY() {
-        return area.keySet().stream()
-                .min(Comparator.comparingInt(Point::getY))
-                .orElseThrow(() -> new IllegalStateException("no min y"))
-                .getY();
-    }
-
-    private int maxY() {
-        return area.keySet().stream()
-                .max(Comparator.comparingInt(Point::getY))
-                .orElseThrow(() -> new IllegalStateException("no max y"))
-                .getY();
+    private int index(Point point) {
+        return area.cellIndex(point);
     }
 
     private int calculateShortestPath(Point src, Point dst) {
-        return calculateDistanceMap(src).get(dst);
+        GridSearch.Edges gridEdges = GridSearch.gridEdges(width, height, open);
+        GridSearch search = GridSearch.breadthFirst(open.length, index(src), index(dst), (cell, visitor) -> {
+            gridEdges.forEachNeighbour(cell, visitor);
+            if (portalTargets[cell] != NONE) {
+                visitor.accept(portalTargets[cell]);
+            }
+        });
+
+        int distance = search.distance(index(dst));
+        if (distance == GridSearch.UNREACHABLE) {
+            throw new IllegalStateException("no path from " + src + " to " + dst);
+        }
+        return distance;
     }
 
+    /**
+     * The recursive maze is searched as a graph of the points of interest (entrance, exit and portals) per level.
+     * Walking between two points of interest on the same level is an edge weighted with its distance,
+     * taking a portal is an edge of weight 1 to the level above or below.
+     */
     private int calculateShortestPathWithRecursion(Point src, Point dst) {
-        // use the Dijkstra algorithm
-
-        int highestRecursionLevelForWhichPointsHaveBeenAdded = 1;
-
-        // upgrade area to points with recursionlevel
-        Map<Point, DonutMazeFieldType> areaWithRecursion = new HashMap<>();
-        area.entrySet().stream()
-                .filter(entry -> isOpen(entry.getKey()))
-                .forEach(entry -> areaWithRecursion.put(new PointWithRecursion(entry.getKey().getX(), entry.getKey().getY(), 0), entry.getValue()));
-
-        // create a set with unvisited squares
-        Set<PointWithRecursion> unvisitedPoints = area.keySet().stream()
-                .filter(point -> !isWall(point))
-                .map(point -> new PointWithRecursion(point.getX(), point.getY(), 0))
-                .collect(Collectors.toSet());
-
-        // add an extra recursion level upfront
-        List<PointWithRecursion> nextRecursionLevel = area.keySet().stream()
-                .filter(point -> !isWall(point))
-                .map(point -> new PointWithRecursion(point.getX(), point.getY(), 1))
-                .collect(Collectors.toList());
-        unvisitedPoints.addAll(nextRecursionLevel);
-
-        // Map with points and (minimum) distance, initially unreachable
-        Map<PointWithRecursion, Integer> mapPointWithDistance = unvisitedPoints.stream()
-                .collect(toMap(point -> point, point -> UNREACHABLE));
-        PointWithRecursion srcRecursion = new PointWithRecursion(src.getX(), src.getY(), 0);
-        // set the distance for the source to 0
-        mapPointWithDistance.put(srcRecursion, 0);
-        PointWithRecursion dstRecursion = new PointWithRecursion(dst.getX(), dst.getY(), 0);
-
-        // start with source
-        PointWithRecursion currentPoint = srcRecursion;
-
-        boolean reachedDestination = false;
-
-        while (!reachedDestination && !unvisitedPoints.isEmpty()) {
-            List<PointWithRecursion> freeNeighbours = getOpenNeighbourPointsWithWarpsAndRecursion(currentPoint).stream()
-                    .filter(point -> unvisitedPoints.contains(point))
-                    .collect(toList());
-
-            // update the distance to these neighbours if closer through this node
-            int currentDistanceToNeighbour = mapPointWithDistance.get(currentPoint) + 1;
-            freeNeighbours.stream()
-                    .filter(fn -> currentDistanceToNeighbour < mapPointWithDistance.get(fn))
-                    .forEach(fn -> mapPointWithDistance.put(fn, currentDistanceToNeighbour));
-
-            if (currentPoint.equals(dstRecursion)) {
-                reachedDestination = true;
+        // source and destination first, followed by the portals
+        List<Point> pointsOfInterest = new ArrayList<>(List.of(src, dst));
+        pointsOfInterest.addAll(portals.keySet());
+        int nrPoints = pointsOfInterest.size();
+
+        // walking distances between the points of interest on one level, and where the portals lead to
+        int[][] walkingDistances = new int[nrPoints][];
+        int[] portalTargetPoints = new int[nrPoints];
+        boolean[] innerPortals = new boolean[nrPoints];
+        int maxWeight = 1;
+        int minWalkingDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < nrPoints; i++) {
+            Point point = pointsOfInterest.get(i);
+            GridSearch search = GridSearch.breadthFirst(open.length, index(point), GridSearch.NO_TARGET, GridSearch.gridEdges(width, height, open));
+            walkingDistances[i] = pointsOfInterest.stream()
+                    .mapToInt(other -> search.distance(index(other)))
+                    .toArray();
+            maxWeight = Math.max(maxWeight, Arrays.stream(walkingDistances[i]).max().orElse(1));
+            minWalkingDistance = Math.min(minWalkingDistance, Arrays.stream(walkingDistances[i]).filter(d -> d > 0).min().orElse(Integer.MAX_VALUE));
+            portalTargetPoints[i] = portals.containsKey(point) ? pointsOfInterest.indexOf(portals.get(point)) : NONE;
+            innerPortals[i] = isInnerPortal(point);
+        }
+
+        // start with a level per portal, only go deeper when that is not enough
+        int maxLevel = Math.max(1, portals.size());
+        while (true) {
+            int distance = searchRecursionLevels(nrPoints, walkingDistances, portalTargetPoints, innerPortals, maxWeight, maxLevel);
+            if (distance == GridSearch.UNREACHABLE) {
+                if (maxLevel >= MAX_RECURSION_LEVEL) {
+                    throw new IllegalStateException("no path from " + src + " to " + dst + " within " + MAX_RECURSION_LEVEL + " levels");
+                }
+                maxLevel = Math.min(2 * maxLevel, MAX_RECURSION_LEVEL);
             } else {
-                // remove current point from unvisited set
-                unvisitedPoints.remove(currentPoint);
-
-                // set next best point, sort on recursionlevel instead of distance to prevent "wandering off" through the recursion levels
-                currentPoint = unvisitedPoints.stream()
-                        .filter(point -> mapPointWithDistance.get(point) != UNREACHABLE)
-                        .min(Comparator.comparingInt(PointWithRecursion::getRecursionLevel))
-                        .orElse(null);
-
-                // check if we need to add an extra recursion level
-                if (currentPoint != null && currentPoint.getRecursionLevel() == highestRecursionLevelForWhichPointsHaveBeenAdded) {
-                    final int newRecursionLevel = highestRecursionLevelForWhichPointsHaveBeenAdded + 1;
-                    Set<PointWithRecursion> recursiveLevel = area.keySet().stream()
-                            .filter(point -> isOpen(point))
-                            .filter(point -> !entrance.equals(point))
-                            .filter(point -> !exit.equals(point))
-                            .map(point -> new PointWithRecursion(point.getX(), point.getY(), newRecursionLevel))
-                            .collect(Collectors.toSet());
-                    unvisitedPoints.addAll(recursiveLevel);
-                    mapPointWithDistance.putAll(recursiveLevel.stream()
-                            .collect(toMap(point -> point, point -> UNREACHABLE)));
-                    highestRecursionLevelForWhichPointsHaveBeenAdded = newRecursionLevel;
-                    System.out.println("added new recursionlevel for level = " + newRecursionLevel + " @point = " + currentPoint + " #distancemap = " + mapPointWithDistance.size() + " #unvisitedPoints = " + unvisitedPoints.size());
+                // every level deeper costs a step through a portal and a walk to the next portal,
+                // so any path up to this distance fits in the levels searched
+                int deepestLevel = distance / (1 + minWalkingDistance) + 1;
+                if (deepestLevel <= maxLevel) {
+                    return distance;
                 }
+                maxLevel = deepestLevel;
             }
         }
-
-        return mapPointWithDistance.get(dstRecursion);
     }
 
-    private Map<Point, Integer> calculateDistanceMap(Point src) {
-        // use the Dijkstra algorithm
-
-        // create a set with unvisited squares
-        Set<Point> unvisitedPoints = area.keySet().stream()
-                .filter(point -> !isWall(point))
-                .collect(Collectors.toSet());
-
-        // Map with points and (minimum) distance, initially unreachable
-        Map<Point, Integer> mapPointWithDistance = unvisitedPoints.stream()
-                .collect(toMap(point -> point, point -> UNREACHABLE));
-        // set the distance for the source to 0
-        mapPointWithDistance.put(src, 0);
-
-        // start with source
-        Point currentPoint = src;
-
-        while (!unvisitedPoints.isEmpty()) {
-            List<Point> freeNeighbours = getOpenNeighbourPointsWithWarps(currentPoint).stream()
-                    .filter(unvisitedPoints::contains)
-                    .collect(toList());
-
-            // update the distance to these neighbours if closer through this node
-            int currentDistanceToNeighbour = mapPointWithDistance.get(currentPoint) + 1;
-            freeNeighbours.stream()
-                    .forEach(fn -> {
-                        if (currentDistanceToNeighbour < mapPointWithDistance.get(fn)) {
-                            mapPointWithDistance.put(fn, currentDistanceToNeighbour);
-                        }
-                    });
-            // remove current point from unvisited set
-            unvisitedPoints.remove(currentPoint);
-
-            // set next best point
-            currentPoint = unvisitedPoints.stream()
-                    .min(Comparator.comparingInt(mapPointWithDistance::get))
-                    .orElse(null);
-        }
-
-        return mapPointWithDistance;
+    /**
+     * @return the distance from the source (point 0) to the destination (point 1) on level 0, with nodes level * nrPoints + point
+     */
+    private int searchRecursionLevels(int nrPoints, int[][] walkingDistances, int[] portalTargetPoints, boolean[] innerPortals, int maxWeight, int maxLevel) {
+        GridSearch search = GridSearch.bucketQueue((maxLevel + 1) * nrPoints, 0, 1, maxWeight, (node, visitor) -> {
+            int level = node / nrPoints;
+            int point = node % nrPoints;
+            for (int other = 0; other < nrPoints; other++) {
+                if (other != point && walkingDistances[point][other] != GridSearch.UNREACHABLE) {
+                    visitor.visit(level * nrPoints + other, walkingDistances[point][other]);
+                }
+            }
+            if (portalTargetPoints[point] != NONE) {
+                if (innerPortals[point] && level < maxLevel) {
+                    visitor.visit((level + 1) * nrPoints + portalTargetPoints[point], 1);
+                } else if (!innerPortals[point] && level > 0) {
+                    visitor.visit((level - 1) * nrPoints + portalTargetPoints[point], 1);
+                }
+            }
+        });
+        return search.distance(1);
     }
 
     private List<Point> getOpenNeighbourPoints(Point point) {
@@ -331,65 +282,13 @@ class DonutMaze {
         return points;
     }
 
-    private List<Point> getOpenNeighbourPointsWithWarps(Point point) {
-        List<Point> points = Arrays.stream(Move.values())
-                .map(point::nextPoint)
-                .filter(this::isOpen)
-                .collect(Collectors.toList());
-
-        if (portals.containsKey(point)) {
-            points.add(portals.get(point));
-        }
-
-        return points;
-    }
-
-    private List<PointWithRecursion> getOpenNeighbourPointsWithWarpsAndRecursion(PointWithRecursion point) {
-        List<PointWithRecursion> points = Arrays.stream(Move.values())
-                .map(point::nextPoint)
-                .filter(p -> isOpen(p))
-                .collect(Collectors.toList());
-
-        // add inner portal destination i.e. the outer portal point
-        if (isInnerPortal(point)) {
-            PointWithRecursion portalPoint = new PointWithRecursion(portals.get(point.toPlainPoint()), point.getRecursionLevel() + 1);
-            points.add(portalPoint);
-        }
-        if (point.getRecursionLevel() > 0) {
-            // add outer portal destination i.e. the inner portal point
-            if (isOuterPortal(point)) {
-                PointWithRecursion portalPoint = new PointWithRecursion(portals.get(point.toPlainPoint()), point.getRecursionLevel() - 1);
-                points.add(portalPoint);
-            }
-        }
-
-        return points;
-    }
-
-    private boolean isInnerPortal(PointWithRecursion point) {
-        return isInnerPortal(point.toPlainPoint());
-    }
-
     private boolean isInnerPortal(Point point) {
-        return portals.containsKey(point) && (point.getX() > 0 && point.getX() < maxX() &&
-                point.getY() > 0 && point.getY() < maxY());
-    }
-
-    private boolean isOuterPortal(PointWithRecursion point) {
-        return portals.containsKey(point.toPlainPoint()) && (point.getX() == 0 || point.getX() == maxX() ||
-                point.getY() == 0 || point.getY() == maxY());
-    }
-
-    private boolean isOpen(PointWithRecursion point) {
-        return isOpen(point.toPlainPoint());
+        return portals.containsKey(point) && (point.getX() > 0 && point.getX() < area.getMaxX() &&
+                point.getY() > 0 && point.getY() < area.getMaxY());
     }
 
     private boolean isOpen(Point point) {
-        return area.containsKey(point) && area.get(point).equals(OPEN);
-    }
-
-    private boolean isWall(Point point) {
-        return area.containsKey(point) && area.get(point).equals(WALL);
+        return area.get(point) == OPEN;
     }
 
     public int nrStepsShortestPath() {
@@ -418,42 +317,3 @@ enum DonutMazeFieldType {
                 .orElseThrow(() -> new IllegalStateException("unknown donut maze field type"));
     }
 }
-
-@AllArgsConstructor
-@EqualsAndHashCode(callSuper = true)
-@Data
-@ToString(callSuper = true)
-class PointWithRecursion extends Point implements Comparable<Point> {
-    protected int recursionLevel = 0;
-
-    public PointWithRecursion(int x, int y, int recursionLevel) {
-        this.x = x;
-        this.y = y;
-        this.recursionLevel = recursionLevel;
-    }
-
-    public PointWithRecursion(Point point, int recursionLevel) {
-        this(point.getX(), point.getY(), recursionLevel);
-    }
-
-    PointWithRecursion nextPoint(Move move) {
-        return switch (move) {
-            case N -> new PointWithRecursion(getX(), getY() - 1, recursionLevel);
-            case S -> new PointWithRecursion(getX(), getY() + 1, recursionLevel);
-            case W -> new PointWithRecursion(getX() - 1, getY(), recursionLevel);
-            case E -> new PointWithRecursion(getX() + 1, getY(), recursionLevel);
-        };
-    }
-
-    public int compareTo(PointWithRecursion o) {
-        if (this.recursionLevel == o.recursionLevel) {
-            return super.compareTo(o);
-        } else {
-            return this.recursionLevel - o.recursionLevel;
-        }
-    }
-
-    public Point toPlainPoint() {
-        return new Point(x, y);
-    }
-}
@@ -1,7 +1,6 @@
 package nl.krudde;
 
 import lombok.AllArgsConstructor;
-import lombok.Builder;
 import lombok.Data;
 
 import java.io.IOException;
@@ -10,158 +9,22 @@ import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.IntStream;
 
 import static java.util.stream.Collectors.toList;
 
-@Data
-@Builder
-class IntcodeV11 {
-    private double[] program;
-    private int position;
-    private int relativeBase;
-
-    @Builder.Default
-    private boolean halted = false;
-    @Builder.Default
-    boolean waitingForInput = false;
-    @Builder.Default
-    private Queue<Long> input = new LinkedList<>();
-    @Builder.Default
-    private Queue<Long> output = new LinkedList<>();
-    @Builder.Default
-    private boolean initialised = false;
-
-    public void addInput(Long input) {
-        this.input.add(input);
-        waitingForInput = false;
-    }
-
-    public boolean hasOutput() {
-        return !output.isEmpty();
-    }
-
-    public long getOutput() {
-        return output.remove();
-    }
-
-    public void setMemoryZeroValue(int value) {
-        program[0] = value;
-    }
-
-    public void run() {
-        int opcode;
-        double firstParameter, secondParameter;
-
-        if (!initialised) {
-            double[] inputProgram = program;
-            // make space for 256K memory above the program
-            program = new double[program.length + 256 * 1024];
-            // copy the program
-            System.arraycopy(inputProgram, 0, program, 0, inputProgram.length);
-            initialised = true;
-        }
-
-        while (!halted && !waitingForInput) {
-            opcode = getOpcode(position);
-            switch (opcode) {
-                case 1 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter + secondParameter;
-                    position += 4;
-                }
-                case 2 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter * secondParameter;
-                    position += 4;
-                }
-                case 3 -> {
-                    if (input.peek() == null) {
-                        waitingForInput = true;
-                    } else {
-                        waitingForInput = false;
-
-                        int writePosition = getPosition(position, 1);
-                        program[writePosition] = input.remove();
-                        position += 2;
-                    }
-                }
-                case 4 -> {
-                    firstParameter = getParameter(position, 1);
-                    output.add((long) firstParameter);
-                    position += 2;
-                }
-                case 5 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    if (firstParameter != 0) {
-                        position = (int) secondParameter;
-                    } else {
-                        position += 3;
-                    }
-                }
-                case 6 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    if (firstParameter == 0) {
-                        position = (int) secondParameter;
-                    } else {
-                        position += 3;
-                    }
-                }
-                case 7 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter < secondParameter ? 1 : 0;
-                    position += 4;
-                }
-                case 8 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter == secondParameter ? 1 : 0;
-                    position += 4;
-                }
-                case 9 -> {
-                    firstParameter = getParameter(position, 1);
-                    relativeBase += firstParameter;
-                    position += 2;
-                }
-                default -> throw new IllegalStateException("unknown opcode: " + opcode);
-            }
-            halted = program[position] == 99;
-        }
-    }
-
-    private int getOpcode(int position) {
-        return (int) (program[position] % 100);
-    }
-
-    private double getParameter(int positionInstruction, int index) {
-        return program[getPosition(positionInstruction, index)];
-    }
-
-    private int getPosition(int positionInstruction, int index) {
-        int instruction = (int) program[positionInstruction];
-        int mode = (int) ((instruction / (10 * (int) Math.pow(10, index))) % 10);
-        return switch (Mode.of(mode)) {
-            case MODE_IMMEDIATE -> positionInstruction + index;
-            case MODE_POSITION -> (int) program[positionInstruction + index];
-            case MODE_RELATIVE -> (int) (program[positionInstruction + index] + relativeBase);
-            default -> throw new IllegalStateException("unknown mode: " + mode);
-        };
-    }
-}
-
 public class Day_23 {
 
     final static String DEFAULT_FILENAME = new Object() {
     }.getClass().getEnclosingClass().getSimpleName().toLowerCase().replace("_0", "_") + ".txt";
+    // second argument to run the round based network instead of the concurrent one
+    final static String ROUND_BASED_MODE = "rounds";
 
     int runs = 0;
 
@@ -173,22 +36,32 @@ public class Day_23 {
         // part 1
         System.out.println("\npart 1: ");
 
-        double[] intCodeProgram = Arrays.stream(input.split(","))
-                .mapToDouble(Double::valueOf)
+        long[] intCodeProgram = Arrays.stream(input.split(","))
+                .mapToLong(Long::valueOf)
                 .toArray();
         // build network with 50 computers
         int nrComputers = 50;
-        Network network = new Network(nrComputers, intCodeProgram);
+        // concurrent unless the round based network is asked for after the file name
+        boolean concurrent = args.length < 2 || !ROUND_BASED_MODE.equals(args[1]);
+
+        if (concurrent) {
+            ConcurrentNetwork concurrentNetwork = new ConcurrentNetwork(nrComputers, intCodeProgram);
+            concurrentNetwork.start();
+            System.out.println("message.getY() = " + concurrentNetwork.getFirstYValueSentToNAT().join());
+            concurrentNetwork.stop();
+        } else {
+            Network network = new Network(nrComputers, intCodeProgram);
 
-        int iteration = 0;
-        while (network.getMessageForDestination255().isEmpty()) {
-            network.receiveAndSendMessages();
-//            System.out.println(String.format("iteration %d done, #message in network: %d", iteration, network.getNrMessages()));
-            iteration++;
-        }
+            int iteration = 0;
+            while (network.getMessageForDestination255().isEmpty()) {
+                network.receiveAndSendMessages();
+//                System.out.println(String.format("iteration %d done, #message in network: %d", iteration, network.getNrMessages()));
+                iteration++;
+            }
 
-        Message message = network.getMessageForDestination255().get();
-        System.out.println("message.getY() = " + message.getY());
+            Message message = network.getMessageForDestination255().get();
+            System.out.println("message.getY() = " + message.getY());
+        }
 
         System.out.println();
 
@@ -199,14 +72,21 @@ public class Day_23 {
         start = LocalTime.now();
         System.out.println("\npart 2: ");
 
-        network = new Network(nrComputers, intCodeProgram);
-        iteration = 0;
-        while (network.getFirstDuplicateYValueSentToNAT().isEmpty()) {
-            network.receiveAndSendMessages();
-//            System.out.println(String.format("iteration %d done, #message in network: %d", iteration, network.getNrMessages()));
-            iteration++;
+        if (concurrent) {
+            ConcurrentNetwork concurrentNetwork = new ConcurrentNetwork(nrComputers, intCodeProgram);
+            concurrentNetwork.start();
+            System.out.println("firstDuplicateYValueSentToNAT() = " + concurrentNetwork.getFirstDuplicateYValueSentToNAT().join());
+            concurrentNetwork.stop();
+        } else {
+            Network network = new Network(nrComputers, intCodeProgram);
+            int iteration = 0;
+            while (network.getFirstDuplicateYValueSentToNAT().isEmpty()) {
+                network.receiveAndSendMessages();
+//                System.out.println(String.format("iteration %d done, #message in network: %d", iteration, network.getNrMessages()));
+                iteration++;
+            }
+            System.out.println("firstDuplicateYValueSentToNAT() = " + network.getFirstDuplicateYValueSentToNAT().get());
         }
-        System.out.println("firstDuplicateYValueSentToNAT() = " + network.getFirstDuplicateYValueSentToNAT().get());
 
 
         finish = LocalTime.now();
@@ -238,124 +118,532 @@ class Message {
     private long y;
 }
 
+/**
+ * Round based network: every round the packets sent in the previous round are delivered, after which every
+ * computer runs until it waits for input again.
+ * Packets are kept in arrays and routed in one pass per round, bucketed by destination.
+ * Every cluster of the topology has its own NAT, which wakes the first computer of its cluster when the cluster is idle.
+ */
 class Network {
-    private List<IntcodeV11> computers = new ArrayList<>();
-    private List<Message> messages = new ArrayList<>();
-    private boolean receiveIdle = false;
-    private boolean sendIdle = false;
-    private Message natMessage;
-    private Set<Long> sendNATYValues = new HashSet<>();
-    private Optional<Long> firstDuplicateYValueSentToNAT = Optional.empty();
-
-    Network(int nrComputers, double[] program) {
-        // build computers
-        IntStream.range(0, nrComputers)
-                .forEach(i -> computers.add(new IntcodeV11.IntcodeV11Builder()
-                        .program(program)
-                        .build()));
-
-        bootComputers();
-    }
-
-    private boolean idle() {
-        return receiveIdle && sendIdle;
-    }
-
-    private void bootComputers() {
-        IntStream.range(0, computers.size())
-                .forEach(i -> {
-                    IntcodeV11 computer = computers.get(i);
-                    computer.addInput((long) i);
-                    computer.run();
-                    while (computer.hasOutput()) {
-                        // read address, x, y
-                        int address = (int) computer.getOutput();
-                        long x = computer.getOutput();
-                        long y = computer.getOutput();
-//                        System.out.println(String.format("computer: %2d address=x,y %2d=%d,%d", i, address, x, y));
-                        messages.add(new Message(address, x, y));
-                    }
-                });
-        System.out.println("booted computers = " + computers.size());
+    static final int DEFAULT_NAT_ADDRESS = 255;
+
+    private final IntcodeComputer[] computers;
+    private final NetworkTopology topology;
+    private final int natAddress;
+
+    // packets sent in the current round, routed at the start of the next round
+    private int[] sentDestinations = new int[64];
+    private long[] sentX = new long[64];
+    private long[] sentY = new long[64];
+    private int nrSent = 0;
+
+    // routed packets ordered by destination: the packets for computer i are at [bucketStart[i], bucketStart[i + 1])
+    private final int[] bucketStart;
+    private final int[] bucketFill;
+    private long[] routedX = new long[64];
+    private long[] routedY = new long[64];
+
+    // per cluster: the last packet sent to its NAT, the y values the NAT delivered and the first one delivered twice
+    private final Message[] natMessages;
+    private final LongSet[] sendNATYValues;
+    private final Optional<Long>[] firstDuplicateYValueSentToNAT;
+    // per cluster the packets routed and sent in the current round, a cluster without any is idle
+    private final int[] clusterActivity;
+
+    private long round = 0;
+    private RoundStatistics lastRoundStatistics;
+
+    Network(int nrComputers, long[] program) {
+        this(NetworkTopology.flat(nrComputers), program, DEFAULT_NAT_ADDRESS);
+    }
+
+    Network(NetworkTopology topology, long[] program, int natAddress) {
+        int nrComputers = topology.nrComputers();
+        this.topology = topology;
+        this.natAddress = natAddress;
+        computers = new IntcodeComputer[nrComputers];
+        bucketStart = new int[nrComputers + 1];
+        bucketFill = new int[nrComputers];
+
+        int nrClusters = topology.nrClusters();
+        natMessages = new Message[nrClusters];
+        sendNATYValues = new LongSet[nrClusters];
+        @SuppressWarnings("unchecked")
+        Optional<Long>[] firstDuplicates = new Optional[nrClusters];
+        firstDuplicateYValueSentToNAT = firstDuplicates;
+        for (int cluster = 0; cluster < nrClusters; cluster++) {
+            sendNATYValues[cluster] = new LongSet();
+            firstDuplicateYValueSentToNAT[cluster] = Optional.empty();
+        }
+        clusterActivity = new int[nrClusters];
+
+        bootComputers(program);
+    }
+
+    private void bootComputers(long[] program) {
+        // boot the NIC program once and fork it for every computer, they share the pages they do not write
+        IntcodeComputer bootedComputer = new IntcodeComputer.IntcodeComputerBuilder()
+                .program(program)
+                .build();
+        bootedComputer.run();
+
+        for (int i = 0; i < computers.length; i++) {
+            IntcodeComputer computer = bootedComputer.fork();
+            computer.addInput(topology.address(i));
+            computer.run();
+            collectMessages(i, computer);
+            computers[i] = computer;
+        }
     }
 
     public void receiveAndSendMessages() {
-        if (messages.size() == 0) {
-            receiveIdle = true;
-        } else {
-            receiveIdle = false;
+        long start = System.nanoTime();
+
+        // process only the messages of the previous round
+        int nrRouted = routeMessages();
+        int nrReceivingComputers = 0;
+
+        for (int i = 0; i < computers.length; i++) {
+            IntcodeComputer computer = computers[i];
+            if (bucketStart[i] == bucketStart[i + 1]) {
+                // send -1 for computers without messages
+                computer.addInput(-1);
+            } else {
+                for (int message = bucketStart[i]; message < bucketStart[i + 1]; message++) {
+                    computer.addInput(routedX[message]);
+                    computer.addInput(routedY[message]);
+                }
+                nrReceivingComputers++;
+            }
+            computer.run();
+            collectMessages(i, computer);
+        }
+
+        for (int cluster = 0; cluster < clusterActivity.length; cluster++) {
+            Message natMessage = natMessages[cluster];
+            if (clusterActivity[cluster] == 0 && natMessage != null) {
+                IntcodeComputer computer = computers[topology.clusterBase(cluster)];
+                computer.addInput(natMessage.getX());
+                computer.addInput(natMessage.getY());
+                if (!sendNATYValues[cluster].add(natMessage.getY()) && firstDuplicateYValueSentToNAT[cluster].isEmpty()) {
+                    firstDuplicateYValueSentToNAT[cluster] = Optional.of(natMessage.getY());
+                }
+            }
         }
 
-        // process only current messages
-        List<Message> currentMessages = new ArrayList<>(messages);
-        messages.clear();
+        round++;
+        lastRoundStatistics = new RoundStatistics(round, nrRouted, nrSent, nrReceivingComputers, System.nanoTime() - start);
+    }
 
-        sendMessagesAsInput(currentMessages);
-        runComputersAndCollectMessages();
+    /**
+     * Bucket the messages sent in the previous round by destination (a counting sort, keeping the send order).
+     *
+     * @return the number of routed messages
+     */
+    private int routeMessages() {
+        Arrays.fill(bucketStart, 0);
+        Arrays.fill(clusterActivity, 0);
+        for (int i = 0; i < nrSent; i++) {
+            bucketStart[sentDestinations[i] + 1]++;
+            clusterActivity[topology.cluster(sentDestinations[i])]++;
+        }
+        for (int i = 0; i < computers.length; i++) {
+            bucketStart[i + 1] += bucketStart[i];
+        }
+        System.arraycopy(bucketStart, 0, bucketFill, 0, computers.length);
 
-        if (messages.size() == 0) {
-            sendIdle = true;
-        } else {
-            sendIdle = false;
+        if (routedX.length < nrSent) {
+            routedX = new long[sentX.length];
+            routedY = new long[sentY.length];
         }
+        for (int i = 0; i < nrSent; i++) {
+            int position = bucketFill[sentDestinations[i]]++;
+            routedX[position] = sentX[i];
+            routedY[position] = sentY[i];
+        }
+
+        int nrRouted = nrSent;
+        nrSent = 0;
+        return nrRouted;
+    }
 
-        if (idle() && natMessage != null) {
-            computers.get(0).addInput(natMessage.getX());
-            computers.get(0).addInput(natMessage.getY());
-            if (!sendNATYValues.add(natMessage.getY())) {
-                firstDuplicateYValueSentToNAT = Optional.of(natMessage.getY());
+    private void collectMessages(int source, IntcodeComputer computer) {
+        while (computer.hasOutput()) {
+            // read destination address, x, y
+            int address = (int) computer.getOutput();
+            long x = computer.getOutput();
+            long y = computer.getOutput();
+            if (address == natAddress) {
+                natMessages[topology.cluster(source)] = new Message(address, x, y);
+            } else {
+                int destination = topology.route(source, address);
+                if (destination < 0 || destination >= computers.length) {
+                    throw new IllegalStateException(String.format("computer %d sent message to unknown address %d", source, address));
+                }
+                addSentMessage(destination, x, y);
             }
         }
     }
 
-    private void sendMessagesAsInput(List<Message> messages) {
-        // send messages as input to the computers
-        while (messages.size() > 0) {
-            Message message = messages.remove(0);
-            IntcodeV11 computer = computers.get(message.getAddress());
-            computer.addInput(message.getX());
-            computer.addInput(message.getY());
+    private void addSentMessage(int destination, long x, long y) {
+        if (nrSent == sentDestinations.length) {
+            sentDestinations = Arrays.copyOf(sentDestinations, 2 * nrSent);
+            sentX = Arrays.copyOf(sentX, 2 * nrSent);
+            sentY = Arrays.copyOf(sentY, 2 * nrSent);
         }
+        sentDestinations[nrSent] = destination;
+        clusterActivity[topology.cluster(destination)]++;
+        sentX[nrSent] = x;
+        sentY[nrSent] = y;
+        nrSent++;
     }
 
+    /**
+     * @return the last packet sent to the NAT of the first cluster, for a flat network the only one
+     */
     public Optional<Message> getMessageForDestination255() {
-        if (natMessage != null) {
-            return Optional.of(natMessage);
-        } else return Optional.empty();
-    }
-
-    private void runComputersAndCollectMessages() {
-        // list of computers with messages in the network
-        List<Integer> listComputerWithMessages = messages.stream()
-                .map(Message::getAddress)
-                .distinct()
-                .collect(toList());
-
-        IntStream.range(0, computers.size())
-                .forEach(i -> {
-                    IntcodeV11 computer = computers.get(i);
-                    // send -1 for computers without messages
-                    if (!listComputerWithMessages.contains(i)) {
-                        computer.addInput((long) -1);
-                    }
-                    computer.run();
-                    while (computer.hasOutput()) {
-                        // read destination, x, y
-                        int destination = (int) computer.getOutput();
-                        long x = computer.getOutput();
-                        long y = computer.getOutput();
-//                        System.out.println(String.format("computer: %2d message %d,%d -> %d", i, x, y, destination));
-                        Message message = new Message(destination, x, y);
-                        if (destination == 255) {
-                            natMessage = message;
-                        } else {
-                            messages.add(new Message(destination, x, y));
-                        }
-                    }
-                });
+        return getNatMessage(0);
     }
 
+    public Optional<Message> getNatMessage(int cluster) {
+        return Optional.ofNullable(natMessages[cluster]);
+    }
+
+    /**
+     * @return the first y value the NAT of the first cluster delivered twice, for a flat network the only one
+     */
     public Optional<Long> getFirstDuplicateYValueSentToNAT() {
+        return getFirstDuplicateYValueSentToNAT(0);
+    }
+
+    public Optional<Long> getFirstDuplicateYValueSentToNAT(int cluster) {
+        return firstDuplicateYValueSentToNAT[cluster];
+    }
+
+    public int getNrMessages() {
+        return nrSent;
+    }
+
+    public RoundStatistics getLastRoundStatistics() {
+        return lastRoundStatistics;
+    }
+}
+
+@Data
+@AllArgsConstructor
+class RoundStatistics {
+    private long round;
+    private int nrMessagesRouted;
+    private int nrMessagesSent;
+    private int nrReceivingComputers;
+    private long durationNanos;
+}
+
+/**
+ * Maps the computers of a network to the NIC addresses known by the NIC program.
+ */
+interface NetworkTopology {
+    int nrComputers();
+
+    /**
+     * @return the NIC address given to the computer when booting
+     */
+    int address(int computer);
+
+    /**
+     * @return the computer receiving a message sent by the source computer to the given address
+     */
+    int route(int source, int address);
+
+    int nrClusters();
+
+    /**
+     * @return the cluster of the computer, clusters have their own NAT
+     */
+    int cluster(int computer);
+
+    /**
+     * @return the computer with address 0 of the cluster, woken by the NAT of the cluster
+     */
+    int clusterBase(int cluster);
+
+    /**
+     * Every computer has its own address.
+     */
+    static NetworkTopology flat(int nrComputers) {
+        return clustered(1, nrComputers);
+    }
+
+    /**
+     * Independent clusters, each using the addresses 0..clusterSize-1; messages stay within their cluster.
+     * This allows running far more computers than the addresses a NIC program knows (50 for the puzzle input).
+     */
+    static NetworkTopology clustered(int nrClusters, int clusterSize) {
+        return new NetworkTopology() {
+            @Override
+            public int nrComputers() {
+                return nrClusters * clusterSize;
+            }
+
+            @Override
+            public int address(int computer) {
+                return computer % clusterSize;
+            }
+
+            @Override
+            public int route(int source, int address) {
+                return address >= 0 && address < clusterSize ? source - source % clusterSize + address : -1;
+            }
+
+            @Override
+            public int nrClusters() {
+                return nrClusters;
+            }
+
+            @Override
+            public int cluster(int computer) {
+                return computer / clusterSize;
+            }
+
+            @Override
+            public int clusterBase(int cluster) {
+                return cluster * clusterSize;
+            }
+        };
+    }
+}
+
+/**
+ * Load test harness for the NIC program: runs a round based {@link Network} of any size
+ * and aggregates the statistics of its rounds.
+ */
+class NetworkSimulator {
+    private final Network network;
+    private final NetworkStatistics statistics = new NetworkStatistics();
+
+    NetworkSimulator(NetworkTopology topology, long[] program) {
+        this(topology, program, Network.DEFAULT_NAT_ADDRESS);
+    }
+
+    NetworkSimulator(NetworkTopology topology, long[] program, int natAddress) {
+        network = new Network(topology, program, natAddress);
+    }
+
+    public RoundStatistics runRound() {
+        network.receiveAndSendMessages();
+        RoundStatistics roundStatistics = network.getLastRoundStatistics();
+        statistics.add(roundStatistics);
+        return roundStatistics;
+    }
+
+    public NetworkStatistics run(int nrRounds) {
+        for (int i = 0; i < nrRounds; i++) {
+            runRound();
+        }
+        return statistics;
+    }
+
+    public Network getNetwork() {
+        return network;
+    }
+
+    public NetworkStatistics getStatistics() {
+        return statistics;
+    }
+}
+
+@Data
+class NetworkStatistics {
+    private long nrRounds = 0;
+    private long nrMessagesRouted = 0;
+    private long totalNanos = 0;
+    private long minRoundNanos = Long.MAX_VALUE;
+    private long maxRoundNanos = 0;
+
+    void add(RoundStatistics round) {
+        nrRounds++;
+        nrMessagesRouted += round.getNrMessagesRouted();
+        totalNanos += round.getDurationNanos();
+        minRoundNanos = Math.min(minRoundNanos, round.getDurationNanos());
+        maxRoundNanos = Math.max(maxRoundNanos, round.getDurationNanos());
+    }
+
+    public double messagesPerSecond() {
+        return totalNanos == 0 ? 0 : nrMessagesRouted * 1e9 / totalNanos;
+    }
+
+    public double averageRoundNanos() {
+        return nrRounds == 0 ? 0 : (double) totalNanos / nrRounds;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rounds: %d, messages: %d (%.0f/s), round latency (ms) min/avg/max: %.3f/%.3f/%.3f",
+                nrRounds, nrMessagesRouted, messagesPerSecond(),
+                minRoundNanos / 1e6, averageRoundNanos() / 1e6, maxRoundNanos / 1e6);
+    }
+}
+
+/**
+ * Network where every NIC runs as a task on a work-stealing pool as soon as packets arrive in its mailbox,
+ * so all cores are used and thousands of NICs only cost a task each.
+ * Instead of looking at the network every round, the NAT acts when the network gets idle:
+ * a counter tracks the packets in the mailboxes plus the NICs scheduled to run, when it drops to 0 nothing can
+ * happen anymore until the NAT sends its packet.
+ */
+class ConcurrentNetwork {
+    private static final int NAT_ADDRESS = 255;
+    // a NIC is idle after polling this many times in a row without receiving or sending packets
+    private static final int IDLE_POLLS = 2;
+
+    private final Nic[] nics;
+    private final ForkJoinPool pool;
+    private final AtomicLong pendingWork = new AtomicLong();
+    private final AtomicReference<Message> natMessage = new AtomicReference<>();
+    // only used by the thread that saw the network getting idle
+    private final Set<Long> sentNATYValues = new HashSet<>();
+    private final CompletableFuture<Long> firstYValueSentToNAT = new CompletableFuture<>();
+    private final CompletableFuture<Long> firstDuplicateYValueSentToNAT = new CompletableFuture<>();
+    private volatile boolean stopped = false;
+
+    ConcurrentNetwork(int nrComputers, long[] program) {
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+
+        // boot the NIC program once and fork it for every computer
+        IntcodeComputer bootedComputer = new IntcodeComputer.IntcodeComputerBuilder()
+                .program(program)
+                .build();
+        bootedComputer.run();
+
+        nics = new Nic[nrComputers];
+        IntStream.range(0, nrComputers)
+                .forEach(address -> {
+                    IntcodeComputer computer = bootedComputer.fork();
+                    computer.addInput(address);
+                    nics[address] = new Nic(address, computer);
+                });
+    }
+
+    public void start() {
+        // hold back the idle detection until all NICs are scheduled
+        pendingWork.incrementAndGet();
+        Arrays.stream(nics).forEach(Nic::schedule);
+        finishWork(1);
+    }
+
+    public void stop() {
+        stopped = true;
+        pool.shutdownNow();
+    }
+
+    public CompletableFuture<Long> getFirstYValueSentToNAT() {
+        return firstYValueSentToNAT;
+    }
+
+    public CompletableFuture<Long> getFirstDuplicateYValueSentToNAT() {
         return firstDuplicateYValueSentToNAT;
     }
+
+    private void finishWork(long amount) {
+        if (pendingWork.addAndGet(-amount) == 0) {
+            networkIdle();
+        }
+    }
+
+    private void networkIdle() {
+        if (stopped) {
+            return;
+        }
+        Message message = natMessage.get();
+        if (message == null) {
+            fail(new IllegalStateException("network is idle and NAT did not receive any packet"));
+            return;
+        }
+        if (!sentNATYValues.add(message.getY())) {
+            firstDuplicateYValueSentToNAT.complete(message.getY());
+            stopped = true;
+            return;
+        }
+        nics[0].receive(new Message(0, message.getX(), message.getY()));
+    }
+
+    private void fail(Throwable throwable) {
+        stopped = true;
+        firstYValueSentToNAT.completeExceptionally(throwable);
+        firstDuplicateYValueSentToNAT.completeExceptionally(throwable);
+    }
+
+    private class Nic implements Runnable {
+        private final int address;
+        private final IntcodeComputer computer;
+        private final Queue<Message> mailbox = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private int idlePolls = 0;
+
+        Nic(int address, IntcodeComputer computer) {
+            this.address = address;
+            this.computer = computer;
+        }
+
+        void receive(Message message) {
+            pendingWork.incrementAndGet();
+            mailbox.add(message);
+            schedule();
+        }
+
+        void schedule() {
+            if (!stopped && scheduled.compareAndSet(false, true)) {
+                pendingWork.incrementAndGet();
+                pool.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int received = 0;
+            try {
+                Message message;
+                while ((message = mailbox.poll()) != null) {
+                    computer.addInput(message.getX());
+                    computer.addInput(message.getY());
+                    received++;
+                }
+                if (received == 0) {
+                    computer.addInput(-1);
+                }
+                computer.run();
+                int sent = sendPackets();
+
+                idlePolls = received + sent == 0 ? idlePolls + 1 : 0;
+                scheduled.set(false);
+                // a packet may have arrived after emptying the mailbox
+                if (!mailbox.isEmpty() || idlePolls < IDLE_POLLS) {
+                    schedule();
+                }
+            } catch (RuntimeException e) {
+                fail(e);
+            } finally {
+                finishWork(received + 1);
+            }
+        }
+
+        private int sendPackets() {
+            int sent = 0;
+            while (computer.hasOutput()) {
+                int destination = (int) computer.getOutput();
+                long x = computer.getOutput();
+                long y = computer.getOutput();
+                if (destination == NAT_ADDRESS) {
+                    natMessage.set(new Message(destination, x, y));
+                    firstYValueSentToNAT.complete(y);
+                } else if (destination >= 0 && destination < nics.length) {
+                    nics[destination].receive(new Message(destination, x, y));
+                } else {
+                    throw new IllegalStateException(String.format("computer %d sent packet to unknown address %d", address, destination));
+                }
+                sent++;
+            }
+            return sent;
+        }
+    }
 }
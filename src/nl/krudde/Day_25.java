@@ -1,6 +1,5 @@
 package nl.krudde;
 
-import lombok.Builder;
 import lombok.Data;
 
 import java.io.IOException;
@@ -9,153 +8,11 @@ import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static java.util.stream.Collectors.toList;
 
-@Data
-@Builder
-class IntcodeV12 {
-    private double[] program;
-    private int position;
-    private int relativeBase;
-
-    @Builder.Default
-    private boolean halted = false;
-    @Builder.Default
-    boolean waitingForInput = false;
-    @Builder.Default
-    private Queue<Long> input = new LinkedList<>();
-    @Builder.Default
-    private Queue<Long> output = new LinkedList<>();
-    @Builder.Default
-    private boolean initialised = false;
-
-    public void addInput(Long input) {
-        this.input.add(input);
-        waitingForInput = false;
-    }
-
-    public boolean hasOutput() {
-        return !output.isEmpty();
-    }
-
-    public long getOutput() {
-        return output.remove();
-    }
-
-    public void setMemoryZeroValue(int value) {
-        program[0] = value;
-    }
-
-    public void run() {
-        int opcode;
-        double firstParameter, secondParameter;
-
-        if (!initialised) {
-            double[] inputProgram = program;
-            // make space for 256K memory above the program
-            program = new double[program.length + 256 * 1024];
-            // copy the program
-            System.arraycopy(inputProgram, 0, program, 0, inputProgram.length);
-            initialised = true;
-        }
-
-        while (!halted && !waitingForInput) {
-            opcode = getOpcode(position);
-            switch (opcode) {
-                case 1 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter + secondParameter;
-                    position += 4;
-                }
-                case 2 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter * secondParameter;
-                    position += 4;
-                }
-                case 3 -> {
-                    if (input.peek() == null) {
-                        waitingForInput = true;
-                    } else {
-                        waitingForInput = false;
-
-                        int writePosition = getPosition(position, 1);
-                        program[writePosition] = input.remove();
-                        position += 2;
-                    }
-                }
-                case 4 -> {
-                    firstParameter = getParameter(position, 1);
-                    output.add((long) firstParameter);
-                    position += 2;
-                }
-                case 5 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    if (firstParameter != 0) {
-                        position = (int) secondParameter;
-                    } else {
-                        position += 3;
-                    }
-                }
-                case 6 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    if (firstParameter == 0) {
-                        position = (int) secondParameter;
-                    } else {
-                        position += 3;
-                    }
-                }
-                case 7 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter < secondParameter ? 1 : 0;
-                    position += 4;
-                }
-                case 8 -> {
-                    firstParameter = getParameter(position, 1);
-                    secondParameter = getParameter(position, 2);
-                    int writePosition = getPosition(position, 3);
-                    program[writePosition] = firstParameter == secondParameter ? 1 : 0;
-                    position += 4;
-                }
-                case 9 -> {
-                    firstParameter = getParameter(position, 1);
-                    relativeBase += firstParameter;
-                    position += 2;
-                }
-                default -> throw new IllegalStateException("unknown opcode: " + opcode);
-            }
-            halted = program[position] == 99;
-        }
-    }
-
-    private int getOpcode(int position) {
-        return (int) (program[position] % 100);
-    }
-
-    private double getParameter(int positionInstruction, int index) {
-        return program[getPosition(positionInstruction, index)];
-    }
-
-    private int getPosition(int positionInstruction, int index) {
-        int instruction = (int) program[positionInstruction];
-        int mode = (int) ((instruction / (10 * (int) Math.pow(10, index))) % 10);
-        return switch (Mode.of(mode)) {
-            case MODE_IMMEDIATE -> positionInstruction + index;
-            case MODE_POSITION -> (int) program[positionInstruction + index];
-            case MODE_RELATIVE -> (int) (program[positionInstruction + index] + relativeBase);
-            default -> throw new IllegalStateException("unknown mode: " + mode);
-        };
-    }
-}
-
 public class Day_25 {
 
     final static String DEFAULT_FILENAME = new Object() {
@@ -171,11 +28,11 @@ public class Day_25 {
         // part 1
         System.out.println("\npart 1: ");
 
-        double[] intCodeProgram = Arrays.stream(input.split(","))
-                .mapToDouble(Double::valueOf)
+        long[] intCodeProgram = Arrays.stream(input.split(","))
+                .mapToLong(Long::valueOf)
                 .toArray();
 
-        IntcodeV12 intcode = new IntcodeV12.IntcodeV12Builder()
+        IntcodeComputer intcode = new IntcodeComputer.IntcodeComputerBuilder()
                 .program(intCodeProgram)
                 .build();
 
@@ -231,20 +88,20 @@ public class Day_25 {
 
 @Data
 class Droid {
-    private final IntcodeV12 computer;
-    private Map<Point, MapCoordinateStatus> area = new TreeMap<>();
+    private static final Pattern AIRLOCK_CODE = Pattern.compile("[0-9]{6,10}");
+
+    private final IntcodeComputer computer;
     private final Point start = new Point(0, 0);
 
     int moves = 0;
 
-    public Droid(IntcodeV12 computer) {
+    public Droid(IntcodeComputer computer) {
         super();
         this.computer = computer;
     }
 
     public String sendCommand(String command) {
-        (command + "\n").chars().boxed()
-                .forEach(i -> computer.addInput((long) i));
+        computer.addAsciiInput(command + "\n");
         computer.run();
 
         return getOutput();
@@ -289,45 +146,45 @@ class Droid {
         return sendCommand(commandsToPressureSensitiveFloor);
     }
 
+    /**
+     * Try every combination of the items on the pressure sensitive floor, in a fixed order so every run does the same work.
+     *
+     * @return the code for the main airlock
+     */
     public String guessWeightAndGetCode() {
-        List<String> inventory = new ArrayList<>(Arrays.asList("shell", "mug", "cake", "klein bottle", "tambourine", "spool of cat6", "antenna", "weather machine"));
-
-        String code =
-                new Random().ints(0, inventory.size())
-                        .mapToObj(r -> {
-                            Collections.shuffle(inventory);
-                            List<String> inventoryToTry = inventory.subList(0, r);
-
-                            // drop everything
-                            inventory.stream()
-                                    .forEach(item -> System.out.println(sendCommand("drop " + item)));
-
-                            // take the items in this guess
-                            inventoryToTry.stream()
-                                    .forEach(item -> System.out.println(sendCommand("take " + item)));
-
-                            // try to go east
-                            String outputEastCommand = sendCommand("east");
-                            System.out.println("outputEastCommand = " + outputEastCommand);
-                            boolean passed = !outputEastCommand.contains("Security Checkpoint");
-                            if (passed) {
-                                System.out.println("inventoryToTry = " + inventoryToTry);
-                            }
-                            return outputEastCommand;
-                        })
-                        .filter(output->!output.contains("Security Checkpoint"))
-                        .map(output -> output.split("[0-9]{6,10}")[1])
-                        .findFirst()
-                        .orElseThrow(() -> new IllegalStateException("unreachable form infinite IntStream.."));
-
-        return code;
+        List<String> inventory = List.of("shell", "mug", "cake", "klein bottle", "tambourine", "spool of cat6", "antenna", "weather machine");
+
+        // bit i of the combination: take item i
+        for (int combination = 0; combination < 1 << inventory.size(); combination++) {
+            List<String> inventoryToTry = new ArrayList<>();
+            for (int item = 0; item < inventory.size(); item++) {
+                if ((combination & 1 << item) != 0) {
+                    inventoryToTry.add(inventory.get(item));
+                }
+            }
+
+            // drop everything
+            inventory.forEach(item -> System.out.println(sendCommand("drop " + item)));
+
+            // take the items in this guess
+            inventoryToTry.forEach(item -> System.out.println(sendCommand("take " + item)));
+
+            // try to go east
+            String outputEastCommand = sendCommand("east");
+            System.out.println("outputEastCommand = " + outputEastCommand);
+            if (!outputEastCommand.contains("Security Checkpoint")) {
+                System.out.println("inventoryToTry = " + inventoryToTry);
+                Matcher code = AIRLOCK_CODE.matcher(outputEastCommand);
+                if (!code.find()) {
+                    throw new IllegalStateException("no code in: " + outputEastCommand);
+                }
+                return code.group();
+            }
+        }
+        throw new IllegalStateException("no combination of items passes the pressure sensitive floor");
     }
 
     private String getOutput() {
-        StringBuilder stringBuilder = new StringBuilder();
-        while (computer.hasOutput()) {
-            stringBuilder.append(Character.toString((int) computer.getOutput()));
-        }
-        return stringBuilder.toString();
+        return computer.getAsciiOutput();
     }
 }
@@ -0,0 +1,274 @@
+package nl.krudde;
+
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Area map on a dense byte array, replacing a {@code Map<Point, E>}: a cell holds the ordinal of its value,
+ * so looking up a cell does not allocate a Point or hash it.
+ * <p>
+ * Coordinates may be negative. The cells grow automatically when putting a value outside of them,
+ * so maps built while exploring (e.g. by a droid) work as well. Cells which were never set are null, like a missing key.
+ * <p>
+ * Besides x/y, a cell can be addressed by its packed coordinates (see {@link #pack(int, int)}), which stay valid
+ * when the grid grows. For searching, {@link #cellIndex(int, int)} gives the dense index of a cell in the current array.
+ */
+class DenseGrid<E extends Enum<E>> {
+    // packed coordinates: y in the upper 16 bits, x in the lower 16 bits, so both must fit in a short
+    private static final int COORDINATE_BITS = 16;
+    private static final int COORDINATE_MASK = (1 << COORDINATE_BITS) - 1;
+    private static final int MIN_GROWTH = 8;
+    // cell value for never set, values are stored as ordinal + 1
+    private static final byte NOT_SET = 0;
+
+    private final E[] values;
+
+    // the allocated cells
+    private int originX;
+    private int originY;
+    private int width;
+    private int height;
+    private byte[] cells = new byte[0];
+
+    // bounds of the cells which were set
+    private int minX = Integer.MAX_VALUE;
+    private int maxX = Integer.MIN_VALUE;
+    private int minY = Integer.MAX_VALUE;
+    private int maxY = Integer.MIN_VALUE;
+
+    DenseGrid(Class<E> type) {
+        values = type.getEnumConstants();
+        if (values.length >= Byte.MAX_VALUE) {
+            throw new IllegalStateException("too many values for a byte cell: " + type.getSimpleName());
+        }
+    }
+
+    static int pack(int x, int y) {
+        if (x < Short.MIN_VALUE || x > Short.MAX_VALUE || y < Short.MIN_VALUE || y > Short.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("coordinates out of range for packing: (%d,%d)", x, y));
+        }
+        return y << COORDINATE_BITS | (x & COORDINATE_MASK);
+    }
+
+    static int x(int packed) {
+        return (short) packed;
+    }
+
+    static int y(int packed) {
+        return packed >> COORDINATE_BITS;
+    }
+
+    static int neighbour(int packed, Direction direction) {
+        return switch (direction) {
+            case U -> pack(x(packed), y(packed) - 1);
+            case D -> pack(x(packed), y(packed) + 1);
+            case L -> pack(x(packed) - 1, y(packed));
+            case R -> pack(x(packed) + 1, y(packed));
+        };
+    }
+
+    static int neighbour(int packed, Move move) {
+        return switch (move) {
+            case N -> pack(x(packed), y(packed) - 1);
+            case S -> pack(x(packed), y(packed) + 1);
+            case W -> pack(x(packed) - 1, y(packed));
+            case E -> pack(x(packed) + 1, y(packed));
+        };
+    }
+
+    E get(int x, int y) {
+        if (!isAllocated(x, y)) {
+            return null;
+        }
+        byte cell = cells[cellIndex(x, y)];
+        return cell == NOT_SET ? null : values[cell - 1];
+    }
+
+    E get(int packed) {
+        return get(x(packed), y(packed));
+    }
+
+    E get(Point point) {
+        return get(point.getX(), point.getY());
+    }
+
+    boolean containsKey(int x, int y) {
+        return get(x, y) != null;
+    }
+
+    boolean containsKey(Point point) {
+        return get(point) != null;
+    }
+
+    void put(int x, int y, E value) {
+        if (!isAllocated(x, y)) {
+            grow(x, y);
+        }
+        cells[cellIndex(x, y)] = (byte) (value.ordinal() + 1);
+        minX = Math.min(minX, x);
+        maxX = Math.max(maxX, x);
+        minY = Math.min(minY, y);
+        maxY = Math.max(maxY, y);
+    }
+
+    void put(Point point, E value) {
+        put(point.getX(), point.getY(), value);
+    }
+
+    /**
+     * Visit the packed coordinates of the (up to 4) horizontally and vertically adjacent cells which are set.
+     */
+    void forEachNeighbour(int packed, IntConsumer visitor) {
+        int x = x(packed);
+        int y = y(packed);
+        if (containsKey(x, y - 1)) {
+            visitor.accept(pack(x, y - 1));
+        }
+        if (containsKey(x, y + 1)) {
+            visitor.accept(pack(x, y + 1));
+        }
+        if (containsKey(x - 1, y)) {
+            visitor.accept(pack(x - 1, y));
+        }
+        if (containsKey(x + 1, y)) {
+            visitor.accept(pack(x + 1, y));
+        }
+    }
+
+    /**
+     * Visit all cells which are set, row by row.
+     */
+    void forEach(CellVisitor<E> visitor) {
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                E value = get(x, y);
+                if (value != null) {
+                    visitor.visit(x, y, value);
+                }
+            }
+        }
+    }
+
+    int count(E value) {
+        byte cellValue = (byte) (value.ordinal() + 1);
+        int count = 0;
+        for (byte cell : cells) {
+            if (cell == cellValue) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    boolean isEmpty() {
+        return minX > maxX;
+    }
+
+    int getMinX() {
+        return minX;
+    }
+
+    int getMaxX() {
+        return maxX;
+    }
+
+    int getMinY() {
+        return minY;
+    }
+
+    int getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * @return the dense index of the cell, only valid until the grid grows
+     */
+    int cellIndex(int x, int y) {
+        return (y - originY) * width + x - originX;
+    }
+
+    int cellIndex(Point point) {
+        return cellIndex(point.getX(), point.getY());
+    }
+
+    int cellX(int cellIndex) {
+        return originX + cellIndex % width;
+    }
+
+    int cellY(int cellIndex) {
+        return originY + cellIndex / width;
+    }
+
+    int nrCells() {
+        return cells.length;
+    }
+
+    int getCellsWidth() {
+        return width;
+    }
+
+    int getCellsHeight() {
+        return height;
+    }
+
+    /**
+     * @return per dense cell index whether the cell is set with a matching value, e.g. the open cells for a {@link GridSearch}
+     */
+    boolean[] cellsMatching(Predicate<E> predicate) {
+        boolean[] matching = new boolean[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            matching[i] = cells[i] != NOT_SET && predicate.test(values[cells[i] - 1]);
+        }
+        return matching;
+    }
+
+    private boolean isAllocated(int x, int y) {
+        return x >= originX && x < originX + width && y >= originY && y < originY + height;
+    }
+
+    private void grow(int x, int y) {
+        if (cells.length == 0) {
+            originX = x;
+            originY = y;
+            width = 1;
+            height = 1;
+            cells = new byte[1];
+            return;
+        }
+
+        // grow at least by the current size on the side where the cell lies, so exploring an area copies it only a few times
+        int newOriginX = originX;
+        int newWidth = width;
+        if (x < originX) {
+            int extra = Math.max(originX - x, Math.max(width, MIN_GROWTH));
+            newOriginX -= extra;
+            newWidth += extra;
+        } else if (x >= originX + width) {
+            newWidth += Math.max(x - originX - width + 1, Math.max(width, MIN_GROWTH));
+        }
+        int newOriginY = originY;
+        int newHeight = height;
+        if (y < originY) {
+            int extra = Math.max(originY - y, Math.max(height, MIN_GROWTH));
+            newOriginY -= extra;
+            newHeight += extra;
+        } else if (y >= originY + height) {
+            newHeight += Math.max(y - originY - height + 1, Math.max(height, MIN_GROWTH));
+        }
+
+        byte[] newCells = new byte[newWidth * newHeight];
+        for (int row = 0; row < height; row++) {
+            int newRowStart = (originY + row - newOriginY) * newWidth + originX - newOriginX;
+            System.arraycopy(cells, row * width, newCells, newRowStart, width);
+        }
+        originX = newOriginX;
+        originY = newOriginY;
+        width = newWidth;
+        height = newHeight;
+        cells = newCells;
+    }
+
+    interface CellVisitor<E> {
+        void visit(int x, int y, E value);
+    }
+}
@@ -0,0 +1,174 @@
+package nl.krudde;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Shortest paths on a graph with a dense int index per node, typically the cells of a grid as y * width + x.
+ * Unit weights are searched breadth first, small integer weights with a bucket queue (Dial's algorithm).
+ * Both are linear in the size of the graph, instead of scanning all unvisited nodes for the next closest one.
+ * <p>
+ * A search stops as soon as the distance to the target is final, or searches the whole graph with {@link #NO_TARGET}.
+ */
+class GridSearch {
+    static final int UNREACHABLE = -1;
+    static final int NO_TARGET = -1;
+    static final int NO_PARENT = -1;
+
+    private final int[] distances;
+    private final int[] parents;
+    // nodes in the order their distance became final, for a breadth first search this is also the queue
+    private final int[] order;
+    private int nrVisited;
+
+    // bucket queue: bucket i holds the nodes with a tentative distance d where d % nrBuckets == i
+    private int[][] buckets;
+    private int[] bucketSizes;
+    private int nrQueued;
+
+    private GridSearch(int nrNodes) {
+        distances = new int[nrNodes];
+        parents = new int[nrNodes];
+        order = new int[nrNodes];
+        Arrays.fill(distances, UNREACHABLE);
+        Arrays.fill(parents, NO_PARENT);
+    }
+
+    static GridSearch breadthFirst(int nrNodes, int source, int target, Edges edges) {
+        GridSearch search = new GridSearch(nrNodes);
+        search.breadthFirst(source, target, edges);
+        return search;
+    }
+
+    /**
+     * @param maxWeight the highest weight of an edge, all weights must be between 1 and maxWeight
+     */
+    static GridSearch bucketQueue(int nrNodes, int source, int target, int maxWeight, WeightedEdges edges) {
+        GridSearch search = new GridSearch(nrNodes);
+        search.bucketQueue(source, target, maxWeight, edges);
+        return search;
+    }
+
+    /**
+     * Edges between the horizontally and vertically adjacent open cells of a grid, with cells y * width + x.
+     */
+    static Edges gridEdges(int width, int height, boolean[] open) {
+        return (cell, visitor) -> {
+            int x = cell % width;
+            if (cell >= width && open[cell - width]) {
+                visitor.accept(cell - width);
+            }
+            if (cell < (height - 1) * width && open[cell + width]) {
+                visitor.accept(cell + width);
+            }
+            if (x > 0 && open[cell - 1]) {
+                visitor.accept(cell - 1);
+            }
+            if (x < width - 1 && open[cell + 1]) {
+                visitor.accept(cell + 1);
+            }
+        };
+    }
+
+    int distance(int node) {
+        return distances[node];
+    }
+
+    int parent(int node) {
+        return parents[node];
+    }
+
+    int nrVisited() {
+        return nrVisited;
+    }
+
+    /**
+     * @return the i-th node of which the distance became final, the source is the first
+     */
+    int visited(int i) {
+        return order[i];
+    }
+
+    int maxDistance() {
+        return nrVisited == 0 ? UNREACHABLE : distances[order[nrVisited - 1]];
+    }
+
+    private void breadthFirst(int source, int target, Edges edges) {
+        distances[source] = 0;
+        order[nrVisited++] = source;
+        // with unit weights a distance is final as soon as the node is reached
+        for (int head = 0; head < nrVisited && (target == NO_TARGET || distances[target] == UNREACHABLE); head++) {
+            int node = order[head];
+            int distance = distances[node] + 1;
+            edges.forEachNeighbour(node, neighbour -> {
+                if (distances[neighbour] == UNREACHABLE) {
+                    distances[neighbour] = distance;
+                    parents[neighbour] = node;
+                    order[nrVisited++] = neighbour;
+                }
+            });
+        }
+    }
+
+    private void bucketQueue(int source, int target, int maxWeight, WeightedEdges edges) {
+        // a node is never more than maxWeight ahead of the bucket being processed, so the buckets can be reused cyclically
+        int nrBuckets = maxWeight + 1;
+        buckets = new int[nrBuckets][4];
+        bucketSizes = new int[nrBuckets];
+        boolean[] settled = new boolean[distances.length];
+
+        distances[source] = 0;
+        enqueue(source, 0);
+        for (int distance = 0; nrQueued > 0; distance++) {
+            int bucket = distance % nrBuckets;
+            // weights are at least 1, so nothing is added to this bucket while processing it
+            for (int i = 0; i < bucketSizes[bucket]; i++) {
+                int node = buckets[bucket][i];
+                nrQueued--;
+                if (settled[node] || distances[node] != distance) {
+                    // already settled with a shorter distance
+                    continue;
+                }
+                settled[node] = true;
+                order[nrVisited++] = node;
+                if (node == target) {
+                    return;
+                }
+                int nodeDistance = distance;
+                edges.forEachNeighbour(node, (neighbour, weight) -> {
+                    if (weight < 1 || weight > maxWeight) {
+                        throw new IllegalStateException("edge weight out of range: " + weight);
+                    }
+                    int newDistance = nodeDistance + weight;
+                    if (!settled[neighbour] && (distances[neighbour] == UNREACHABLE || newDistance < distances[neighbour])) {
+                        distances[neighbour] = newDistance;
+                        parents[neighbour] = node;
+                        enqueue(neighbour, newDistance);
+                    }
+                });
+            }
+            bucketSizes[bucket] = 0;
+        }
+    }
+
+    private void enqueue(int node, int distance) {
+        int bucket = distance % buckets.length;
+        if (bucketSizes[bucket] == buckets[bucket].length) {
+            buckets[bucket] = Arrays.copyOf(buckets[bucket], 2 * buckets[bucket].length);
+        }
+        buckets[bucket][bucketSizes[bucket]++] = node;
+        nrQueued++;
+    }
+
+    interface Edges {
+        void forEachNeighbour(int node, IntConsumer visitor);
+    }
+
+    interface WeightedEdges {
+        void forEachNeighbour(int node, WeightedVisitor visitor);
+    }
+
+    interface WeightedVisitor {
+        void visit(int neighbour, int weight);
+    }
+}
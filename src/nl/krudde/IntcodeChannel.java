@@ -0,0 +1,132 @@
+package nl.krudde;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * FIFO channel of longs between an {@link IntcodeComputer} and its user, implemented as a ring buffer.
+ * Values are not boxed and once the buffer is large enough writing and reading do not allocate.
+ */
+class IntcodeChannel {
+    private static final int INITIAL_CAPACITY = 16;
+
+    // capacity is always a power of 2, so wrapping around is a mask instead of a modulo
+    private long[] buffer;
+    private int head;
+    private int size;
+
+    IntcodeChannel() {
+        buffer = new long[INITIAL_CAPACITY];
+    }
+
+    private IntcodeChannel(IntcodeChannel other) {
+        buffer = other.buffer.clone();
+        head = other.head;
+        size = other.size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void write(long value) {
+        if (size == buffer.length) {
+            grow(size + 1);
+        }
+        buffer[(head + size) & (buffer.length - 1)] = value;
+        size++;
+    }
+
+    void write(long[] values) {
+        if (size + values.length > buffer.length) {
+            grow(size + values.length);
+        }
+        int mask = buffer.length - 1;
+        for (long value : values) {
+            buffer[(head + size) & mask] = value;
+            size++;
+        }
+    }
+
+    /**
+     * Write every character of the string as its ASCII code.
+     */
+    void writeAscii(String s) {
+        if (size + s.length() > buffer.length) {
+            grow(size + s.length());
+        }
+        int mask = buffer.length - 1;
+        for (int i = 0; i < s.length(); i++) {
+            buffer[(head + size) & mask] = s.charAt(i);
+            size++;
+        }
+    }
+
+    long read() {
+        if (size == 0) {
+            throw new NoSuchElementException("channel is empty");
+        }
+        long value = buffer[head];
+        head = (head + 1) & (buffer.length - 1);
+        size--;
+        return value;
+    }
+
+    /**
+     * Read as many values as available and fit in the target.
+     *
+     * @return the number of values read
+     */
+    int drain(long[] target) {
+        int nrValues = Math.min(size, target.length);
+        int mask = buffer.length - 1;
+        for (int i = 0; i < nrValues; i++) {
+            target[i] = buffer[(head + i) & mask];
+        }
+        head = (head + nrValues) & mask;
+        size -= nrValues;
+        return nrValues;
+    }
+
+    /**
+     * Read all available values as ASCII characters.
+     */
+    String readAscii() {
+        StringBuilder stringBuilder = new StringBuilder(size);
+        while (size > 0) {
+            stringBuilder.append((char) read());
+        }
+        return stringBuilder.toString();
+    }
+
+    IntcodeChannel copy() {
+        return new IntcodeChannel(this);
+    }
+
+    private void grow(int minimumCapacity) {
+        int capacity = buffer.length;
+        while (capacity < minimumCapacity) {
+            capacity *= 2;
+        }
+        // unwrap the values to the start of the new buffer
+        long[] newBuffer = new long[capacity];
+        int firstPart = Math.min(size, buffer.length - head);
+        System.arraycopy(buffer, head, newBuffer, 0, firstPart);
+        System.arraycopy(buffer, 0, newBuffer, firstPart, size - firstPart);
+        buffer = newBuffer;
+        head = 0;
+    }
+
+    @Override
+    public String toString() {
+        long[] values = new long[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = buffer[(head + i) & (buffer.length - 1)];
+        }
+        return Arrays.toString(values);
+    }
+}
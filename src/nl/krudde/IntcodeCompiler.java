@@ -0,0 +1,190 @@
+package nl.krudde;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles straight-line Intcode (add, multiply, less than, equals and adjust relative base)
+ * into chains of lambdas which the JIT can inline, instead of decoding every instruction over and over again.
+ * <p>
+ * Blocks are compiled lazily from the original program image and shared by all computers running that image
+ * through the {@link IntcodeImage}.
+ * A computer only uses a block as long as it did not write to any of the addresses of that block,
+ * otherwise the interpreter takes over.
+ */
+class IntcodeCompiler {
+
+    static CompiledIntcode compile(long[] image) {
+        return new CompiledIntcode(image);
+    }
+}
+
+class CompiledIntcode {
+    // marker for addresses where no block starts, e.g. an I/O or jump instruction
+    private static final CompiledBlock NO_BLOCK = new CompiledBlock(0, 0, new CompiledBlock.Instruction[0], new int[0]);
+
+    private final long[] image;
+    // compiled blocks by start address, filled lazily; blocks are immutable so sharing them between threads is safe
+    private final CompiledBlock[] blocks;
+
+    CompiledIntcode(long[] image) {
+        this.image = image;
+        this.blocks = new CompiledBlock[image.length];
+    }
+
+    /**
+     * @return the block starting at the given position or null when there is no straight-line code there
+     */
+    CompiledBlock blockAt(int position) {
+        if (position >= blocks.length) {
+            return null;
+        }
+        CompiledBlock block = blocks[position];
+        if (block == null) {
+            block = compileBlock(position);
+            blocks[position] = block;
+        }
+        return block == NO_BLOCK ? null : block;
+    }
+
+    private CompiledBlock compileBlock(int start) {
+        List<CompiledBlock.Instruction> steps = new ArrayList<>();
+        List<Integer> nextPositions = new ArrayList<>();
+
+        int position = start;
+        while (position < image.length && isStraightLine(position)) {
+            int length = image[position] % 100 == 9 ? 2 : 4;
+            if (position + length > image.length) {
+                break;
+            }
+            steps.add(compileInstruction(position));
+            position += length;
+            nextPositions.add(position);
+        }
+        if (steps.isEmpty()) {
+            return NO_BLOCK;
+        }
+
+        int[] positions = nextPositions.stream().mapToInt(Integer::intValue).toArray();
+        return new CompiledBlock(start, position, steps.toArray(new CompiledBlock.Instruction[0]), positions);
+    }
+
+    private boolean isStraightLine(int position) {
+        long value = image[position];
+        if (value < 0) {
+            return false;
+        }
+        int opcode = (int) (value % 100);
+        if (opcode != 1 && opcode != 2 && opcode != 7 && opcode != 8 && opcode != 9) {
+            return false;
+        }
+        // only the known modes, and never an immediate write target
+        long modes = value / 100;
+        for (int index = 1; index <= 3; index++) {
+            long mode = modes % 10;
+            if (mode > 2 || (index == 3 && opcode != 9 && mode == 1)) {
+                return false;
+            }
+            modes /= 10;
+        }
+        return true;
+    }
+
+    private CompiledBlock.Instruction compileInstruction(int position) {
+        long instruction = image[position];
+        int opcode = (int) (instruction % 100);
+        Operand first = operand(instruction, position, 1);
+        if (opcode == 9) {
+            return (computer, block) -> {
+                computer.setRelativeBase((int) (computer.getRelativeBase() + first.read(computer)));
+                return true;
+            };
+        }
+
+        Operand second = operand(instruction, position, 2);
+        Target target = target(instruction, position);
+        return switch (opcode) {
+            case 1 -> (computer, block) -> block.write(computer, target.address(computer), first.read(computer) + second.read(computer));
+            case 2 -> (computer, block) -> block.write(computer, target.address(computer), first.read(computer) * second.read(computer));
+            case 7 -> (computer, block) -> block.write(computer, target.address(computer), first.read(computer) < second.read(computer) ? 1 : 0);
+            case 8 -> (computer, block) -> block.write(computer, target.address(computer), first.read(computer) == second.read(computer) ? 1 : 0);
+            default -> throw new IllegalStateException("not a straight-line opcode: " + opcode);
+        };
+    }
+
+    private Operand operand(long instruction, int position, int index) {
+        long parameter = image[position + index];
+        int address = (int) parameter;
+        return switch (mode(instruction, index)) {
+            case 0 -> computer -> computer.read(address);
+            case 1 -> computer -> parameter;
+            case 2 -> computer -> computer.read(computer.getRelativeBase() + address);
+            default -> throw new IllegalStateException("unknown mode in instruction: " + instruction);
+        };
+    }
+
+    private Target target(long instruction, int position) {
+        int address = (int) image[position + 3];
+        return switch (mode(instruction, 3)) {
+            case 0 -> computer -> address;
+            case 2 -> computer -> computer.getRelativeBase() + address;
+            default -> throw new IllegalStateException("unsupported write mode in instruction: " + instruction);
+        };
+    }
+
+    private static int mode(long instruction, int index) {
+        return (int) ((instruction / (index == 1 ? 100 : index == 2 ? 1000 : 10000)) % 10);
+    }
+
+    interface Operand {
+        long read(IntcodeComputer computer);
+    }
+
+    interface Target {
+        int address(IntcodeComputer computer);
+    }
+}
+
+class CompiledBlock {
+    final int start;
+    final int end;
+    private final Instruction[] steps;
+    // position of the instruction after each step
+    private final int[] nextPositions;
+
+    CompiledBlock(int start, int end, Instruction[] steps, int[] nextPositions) {
+        this.start = start;
+        this.end = end;
+        this.steps = steps;
+        this.nextPositions = nextPositions;
+    }
+
+    /**
+     * Execute the block and leave the computer at the instruction after it,
+     * or directly after the step which overwrote part of this block.
+     */
+    void execute(IntcodeComputer computer) {
+        for (int i = 0; i < steps.length; i++) {
+            if (!steps[i].execute(computer, this)) {
+                computer.setPosition(nextPositions[i]);
+                return;
+            }
+        }
+        computer.setPosition(end);
+    }
+
+    /**
+     * @return false when the block itself got overwritten, the interpreter continues with the modified code
+     */
+    boolean write(IntcodeComputer computer, int address, long value) {
+        computer.write(address, value);
+        return address < start || address >= end;
+    }
+
+    interface Instruction {
+        /**
+         * @return false when the rest of the block may not be executed anymore
+         */
+        boolean execute(IntcodeComputer computer, CompiledBlock block);
+    }
+}
@@ -0,0 +1,336 @@
+package nl.krudde;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.BitSet;
+
+/**
+ * The one and only Intcode computer, replacing the IntcodeV2..IntcodeV12 copies of the previous days.
+ * All memory cells are longs, input and output go through a pluggable {@link IntcodeIO}.
+ * When built with {@code compiled(true)} straight-line code runs as blocks compiled by the {@link IntcodeCompiler}.
+ */
+@Data
+@Builder
+class IntcodeComputer {
+    // layout of a decoded instruction: opcode in the lowest 8 bits, followed by 2 bits per parameter mode
+    private static final int DECODED = 1 << 14;
+    private static final int OPCODE_MASK = 0xff;
+    private static final int MODE_MASK = 0b11;
+    private static final int MODE_POSITION = 0;
+    private static final int MODE_IMMEDIATE = 1;
+    private static final int MODE_RELATIVE = 2;
+    private static final int MODE_UNKNOWN = 3;
+
+    private long[] program;
+    private IntcodeMemory memory;
+    // decoded instructions and compiled blocks, shared with the forks of this computer; set it to share it with others
+    private IntcodeImage image;
+    private int position;
+    private int relativeBase;
+
+    @Builder.Default
+    private IntcodeIO io = new IntcodeChannelIO();
+    @Builder.Default
+    private boolean halted = false;
+    @Builder.Default
+    private boolean waitingForInput = false;
+    @Builder.Default
+    private boolean initialised = false;
+    @Builder.Default
+    private boolean compiled = false;
+    private CompiledIntcode compiledProgram;
+    // addresses of the program image written by this computer, for these the image can not be used anymore
+    private BitSet writtenAddresses;
+
+    public void addInput(long input) {
+        channelIO().getInput().write(input);
+        waitingForInput = false;
+    }
+
+    /**
+     * Add every character of the string as ASCII input.
+     */
+    public void addAsciiInput(String input) {
+        channelIO().getInput().writeAscii(input);
+        waitingForInput = false;
+    }
+
+    public boolean hasOutput() {
+        return !channelIO().getOutput().isEmpty();
+    }
+
+    public long getOutput() {
+        return channelIO().getOutput().read();
+    }
+
+    /**
+     * @return all available output as ASCII characters
+     */
+    public String getAsciiOutput() {
+        return channelIO().getOutput().readAscii();
+    }
+
+    public IntcodeChannel getInputChannel() {
+        return channelIO().getInput();
+    }
+
+    public IntcodeChannel getOutputChannel() {
+        return channelIO().getOutput();
+    }
+
+    public void setMemoryZeroValue(long value) {
+        initialise();
+        write(0, value);
+    }
+
+    private IntcodeChannelIO channelIO() {
+        if (io instanceof IntcodeChannelIO) {
+            return (IntcodeChannelIO) io;
+        }
+        throw new IllegalStateException("computer is not using channel based I/O but: " + io.getClass().getSimpleName());
+    }
+
+    private void initialise() {
+        if (!initialised) {
+            memory = new IntcodeMemory(program);
+            if (image == null) {
+                image = new IntcodeImage(program);
+            }
+            writtenAddresses = new BitSet(program.length);
+            if (compiled) {
+                compiledProgram = image.compiled();
+            }
+            initialised = true;
+        }
+    }
+
+    /**
+     * Copy of this computer in its current state, e.g. paused while waiting for input.
+     * Memory is shared copy-on-write so forking only costs the pages written afterwards.
+     */
+    public IntcodeComputer fork() {
+        initialise();
+        return new IntcodeComputerBuilder()
+                .program(program)
+                .memory(memory.fork())
+                .image(image)
+                .position(position)
+                .relativeBase(relativeBase)
+                .io(io.fork())
+                .halted(halted)
+                .waitingForInput(waitingForInput)
+                .initialised(true)
+                .compiled(compiled)
+                .compiledProgram(compiledProgram)
+                .writtenAddresses((BitSet) writtenAddresses.clone())
+                .build();
+    }
+
+    /**
+     * Run until the program halts or needs input which is not (yet) available.
+     */
+    public void run() {
+        int instruction, opcode;
+        long firstParameter, secondParameter;
+
+        initialise();
+        waitingForInput = false;
+
+        while (!halted && !waitingForInput) {
+            if (compiledProgram != null) {
+                runCompiledBlock();
+            }
+            instruction = decode(position);
+            opcode = instruction & OPCODE_MASK;
+            switch (opcode) {
+                case 1 -> {
+                    firstParameter = getParameter(instruction, 1);
+                    secondParameter = getParameter(instruction, 2);
+                    write(getPosition(instruction, 3), firstParameter + secondParameter);
+                    position += 4;
+                }
+                case 2 -> {
+                    firstParameter = getParameter(instruction, 1);
+                    secondParameter = getParameter(instruction, 2);
+                    write(getPosition(instruction, 3), firstParameter * secondParameter);
+                    position += 4;
+                }
+                case 3 -> {
+                    if (io.hasInput()) {
+                        write(getPosition(instruction, 1), io.readInput());
+                        position += 2;
+                    } else {
+                        waitingForInput = true;
+                    }
+                }
+                case 4 -> {
+                    io.writeOutput(getParameter(instruction, 1));
+                    position += 2;
+                }
+                case 5 -> {
+                    firstParameter = getParameter(instruction, 1);
+                    secondParameter = getParameter(instruction, 2);
+                    if (firstParameter != 0) {
+                        position = (int) secondParameter;
+                    } else {
+                        position += 3;
+                    }
+                }
+                case 6 -> {
+                    firstParameter = getParameter(instruction, 1);
+                    secondParameter = getParameter(instruction, 2);
+                    if (firstParameter == 0) {
+                        position = (int) secondParameter;
+                    } else {
+                        position += 3;
+                    }
+                }
+                case 7 -> {
+                    firstParameter = getParameter(instruction, 1);
+                    secondParameter = getParameter(instruction, 2);
+                    write(getPosition(instruction, 3), firstParameter < secondParameter ? 1 : 0);
+                    position += 4;
+                }
+                case 8 -> {
+                    firstParameter = getParameter(instruction, 1);
+                    secondParameter = getParameter(instruction, 2);
+                    write(getPosition(instruction, 3), firstParameter == secondParameter ? 1 : 0);
+                    position += 4;
+                }
+                case 9 -> {
+                    relativeBase += getParameter(instruction, 1);
+                    position += 2;
+                }
+                case 99 -> halted = true;
+                default -> throw new IllegalStateException("unknown opcode: " + opcode + " at position: " + position);
+            }
+        }
+    }
+
+    private void runCompiledBlock() {
+        CompiledBlock block = compiledProgram.blockAt(position);
+        if (block != null) {
+            int firstWrittenAddress = writtenAddresses.nextSetBit(block.start);
+            if (firstWrittenAddress < 0 || firstWrittenAddress >= block.end) {
+                block.execute(this);
+            }
+        }
+    }
+
+    /**
+     * Decode the instruction at the given position, using the decoded image as long as this computer did not
+     * write to that address. Self modifying code is decoded every time it executes.
+     */
+    private int decode(int position) {
+        if (position < image.length() && !writtenAddresses.get(position)) {
+            return image.decode(position);
+        }
+        return decode(memory.read(position));
+    }
+
+    static int decode(long value) {
+        int opcode = (int) (value % 100);
+        if (opcode < 0) {
+            throw new IllegalStateException("unknown opcode: " + value);
+        }
+        int instruction = DECODED | opcode;
+        long modes = value / 100;
+        for (int index = 1; index <= 3; index++) {
+            // an unknown mode only fails when the parameter is actually used
+            int mode = (int) Math.min(modes % 10, MODE_UNKNOWN);
+            instruction |= mode << (8 + 2 * (index - 1));
+            modes /= 10;
+        }
+        return instruction;
+    }
+
+    long read(int address) {
+        return memory.read(address);
+    }
+
+    void write(int address, long value) {
+        memory.write(address, value);
+        if (address < image.length()) {
+            writtenAddresses.set(address);
+        }
+    }
+
+    private long getParameter(int instruction, int index) {
+        return memory.read(getPosition(instruction, index));
+    }
+
+    private int getPosition(int instruction, int index) {
+        int mode = (instruction >>> (8 + 2 * (index - 1))) & MODE_MASK;
+        return switch (mode) {
+            case MODE_POSITION -> (int) memory.read(position + index);
+            case MODE_IMMEDIATE -> position + index;
+            case MODE_RELATIVE -> (int) (memory.read(position + index) + relativeBase);
+            default -> throw new IllegalStateException("unknown mode: " + mode);
+        };
+    }
+}
+
+/**
+ * Input/output device of an {@link IntcodeComputer}.
+ */
+interface IntcodeIO {
+    /**
+     * @return false to let the computer pause until input is available
+     */
+    boolean hasInput();
+
+    long readInput();
+
+    void writeOutput(long value);
+
+    /**
+     * @return I/O for a forked computer, starting with the same pending input and output
+     */
+    IntcodeIO fork();
+}
+
+/**
+ * Default I/O: input and output are buffered in channels, to be filled/drained by the caller.
+ */
+class IntcodeChannelIO implements IntcodeIO {
+    private final IntcodeChannel input;
+    private final IntcodeChannel output;
+
+    IntcodeChannelIO() {
+        this(new IntcodeChannel(), new IntcodeChannel());
+    }
+
+    private IntcodeChannelIO(IntcodeChannel input, IntcodeChannel output) {
+        this.input = input;
+        this.output = output;
+    }
+
+    IntcodeChannel getInput() {
+        return input;
+    }
+
+    IntcodeChannel getOutput() {
+        return output;
+    }
+
+    @Override
+    public boolean hasInput() {
+        return !input.isEmpty();
+    }
+
+    @Override
+    public long readInput() {
+        return input.read();
+    }
+
+    @Override
+    public void writeOutput(long value) {
+        output.write(value);
+    }
+
+    @Override
+    public IntcodeChannelIO fork() {
+        return new IntcodeChannelIO(input.copy(), output.copy());
+    }
+}
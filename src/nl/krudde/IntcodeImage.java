@@ -0,0 +1,44 @@
+package nl.krudde;
+
+/**
+ * Program image shared by a computer and its forks, or by computers built with the same image.
+ * Decoded instructions and compiled blocks only depend on the image, so they are cached here once
+ * instead of per computer. A computer only uses them for addresses it did not write to.
+ * There is no global cache: an image is gone as soon as the computers using it are.
+ */
+class IntcodeImage {
+    private final long[] program;
+    // decoded instructions per address, 0 means not decoded yet; filled lazily by any thread, the result is always the same
+    private final int[] decodedInstructions;
+    private volatile CompiledIntcode compiledIntcode;
+
+    IntcodeImage(long[] program) {
+        // a copy, the caller may still change the array
+        this.program = program.clone();
+        this.decodedInstructions = new int[program.length];
+    }
+
+    int length() {
+        return program.length;
+    }
+
+    int decode(int position) {
+        int instruction = decodedInstructions[position];
+        if (instruction == 0) {
+            instruction = IntcodeComputer.decode(program[position]);
+            decodedInstructions[position] = instruction;
+        }
+        return instruction;
+    }
+
+    CompiledIntcode compiled() {
+        if (compiledIntcode == null) {
+            synchronized (this) {
+                if (compiledIntcode == null) {
+                    compiledIntcode = IntcodeCompiler.compile(program);
+                }
+            }
+        }
+        return compiledIntcode;
+    }
+}
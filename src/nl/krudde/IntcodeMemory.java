@@ -0,0 +1,90 @@
+package nl.krudde;
+
+import java.util.Arrays;
+
+/**
+ * Memory of an {@link IntcodeComputer}, split in pages which are shared copy-on-write between forked computers.
+ * <p>
+ * Memory is sparse: the page table only grows up to the highest page written, pages are allocated on their first
+ * write and pages which were never written all point to the same zero page. Reading an address which was never
+ * written returns 0, however high that address is.
+ * <p>
+ * Memory is not thread-safe: a memory and its forks are each used by a single thread at a time.
+ * A fork can be handed to another thread, as long as that handoff is ordered (e.g. by submitting it to an executor).
+ */
+class IntcodeMemory {
+    // small pages: a computer typically writes a few variables in its program and its stack right after it,
+    // forked computers only copy those pages
+    static final int PAGE_BITS = 8;
+    static final int PAGE_SIZE = 1 << PAGE_BITS;
+    static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private static final long[] ZERO_PAGE = new long[PAGE_SIZE];
+
+    private long[][] pages;
+    // pages which are private to this memory and can be written in place, the others are copied on first write
+    private boolean[] ownedPages;
+
+    IntcodeMemory(long[] program) {
+        int nrPages = Math.max(1, (program.length + PAGE_SIZE - 1) >>> PAGE_BITS);
+        pages = new long[nrPages][];
+        ownedPages = new boolean[nrPages];
+        Arrays.fill(pages, ZERO_PAGE);
+
+        for (int page = 0; page * PAGE_SIZE < program.length; page++) {
+            int from = page * PAGE_SIZE;
+            pages[page] = Arrays.copyOfRange(program, from, from + PAGE_SIZE);
+            ownedPages[page] = true;
+        }
+    }
+
+    private IntcodeMemory(long[][] pages) {
+        this.pages = pages;
+        this.ownedPages = new boolean[pages.length];
+    }
+
+    long read(int address) {
+        int page = address >>> PAGE_BITS;
+        if (page >= pages.length) {
+            if (address < 0) {
+                throw new IllegalStateException("negative address: " + address);
+            }
+            return 0;
+        }
+        return pages[page][address & PAGE_MASK];
+    }
+
+    void write(int address, long value) {
+        int page = address >>> PAGE_BITS;
+        if (page >= pages.length) {
+            if (address < 0) {
+                throw new IllegalStateException("negative address: " + address);
+            }
+            growPageTable(page);
+        }
+        if (!ownedPages[page]) {
+            pages[page] = pages[page] == ZERO_PAGE ? new long[PAGE_SIZE] : pages[page].clone();
+            ownedPages[page] = true;
+        }
+        pages[page][address & PAGE_MASK] = value;
+    }
+
+    private void growPageTable(int page) {
+        // grow in steps to avoid copying the page table on every new page, but never beyond the highest int address
+        int nrPages = Math.max(page + 1, Math.min(2 * pages.length, 1 << (31 - PAGE_BITS)));
+        int oldNrPages = pages.length;
+        pages = Arrays.copyOf(pages, nrPages);
+        ownedPages = Arrays.copyOf(ownedPages, nrPages);
+        Arrays.fill(pages, oldNrPages, nrPages, ZERO_PAGE);
+    }
+
+    /**
+     * Copy of this memory sharing all the pages, both memories copy a page before writing to it.
+     * Forking only gives up the ownership of the pages, so a memory which is no longer written
+     * can be forked from several threads at once, like the booted amplifiers of day 7.
+     */
+    IntcodeMemory fork() {
+        Arrays.fill(ownedPages, false);
+        return new IntcodeMemory(pages.clone());
+    }
+}
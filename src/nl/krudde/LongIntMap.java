@@ -0,0 +1,113 @@
+package nl.krudde;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from long to int with open addressing, so keys and values are never boxed.
+ * Meant for large memo tables like the search states of a vault, where a HashMap creates an entry object per state.
+ */
+class LongIntMap {
+    private static final int INITIAL_CAPACITY = 16;
+
+    // capacity is always a power of 2, at most half of the slots are used
+    private long[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+
+    LongIntMap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    LongIntMap(int expectedSize) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < 2 * expectedSize) {
+            capacity *= 2;
+        }
+        keys = new long[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean containsKey(long key) {
+        return used[slot(key)];
+    }
+
+    int getOrDefault(long key, int defaultValue) {
+        int slot = slot(key);
+        return used[slot] ? values[slot] : defaultValue;
+    }
+
+    void put(long key, int value) {
+        int slot = slot(key);
+        if (!used[slot]) {
+            if (2 * (size + 1) > keys.length) {
+                grow();
+                slot = slot(key);
+            }
+            keys[slot] = key;
+            used[slot] = true;
+            size++;
+        }
+        values[slot] = value;
+    }
+
+    void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    /**
+     * @return the keys in the map, in no particular order
+     */
+    long[] keys() {
+        long[] array = new long[size];
+        int i = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot]) {
+                array[i++] = keys[slot];
+            }
+        }
+        return array;
+    }
+
+    /**
+     * @return the slot containing the key, or the empty slot where it should go
+     */
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(long key) {
+        // spread the bits, keys are often small packed values that only differ in a few bits
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+
+        keys = new long[2 * oldKeys.length];
+        values = new int[2 * oldKeys.length];
+        used = new boolean[2 * oldKeys.length];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                used[slot] = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package nl.krudde;
+
+import java.util.Arrays;
+
+/**
+ * Hash set of longs with open addressing, so values are never boxed.
+ * Typically holds {@link PackedPoint packed points}, like the locations of the asteroids.
+ */
+class LongSet {
+    private static final int INITIAL_CAPACITY = 16;
+
+    // capacity is always a power of 2, at most half of the slots are used
+    private long[] values;
+    private boolean[] used;
+    private int size;
+
+    LongSet() {
+        this(INITIAL_CAPACITY);
+    }
+
+    LongSet(int expectedSize) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < 2 * expectedSize) {
+            capacity *= 2;
+        }
+        values = new long[capacity];
+        used = new boolean[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(long value) {
+        return used[slot(value)];
+    }
+
+    /**
+     * @return whether the value was added, i.e. was not in the set yet
+     */
+    boolean add(long value) {
+        int slot = slot(value);
+        if (used[slot]) {
+            return false;
+        }
+        if (2 * (size + 1) > values.length) {
+            grow();
+            slot = slot(value);
+        }
+        values[slot] = value;
+        used[slot] = true;
+        size++;
+        return true;
+    }
+
+    void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    /**
+     * @return the values in the set, in no particular order
+     */
+    long[] toArray() {
+        long[] array = new long[size];
+        int i = 0;
+        for (int slot = 0; slot < values.length; slot++) {
+            if (used[slot]) {
+                array[i++] = values[slot];
+            }
+        }
+        return array;
+    }
+
+    /**
+     * @return the slot containing the value, or the empty slot where it should go
+     */
+    private int slot(long value) {
+        int mask = values.length - 1;
+        int slot = hash(value) & mask;
+        while (used[slot] && values[slot] != value) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(long value) {
+        // spread the bits, packed points only differ in a few bits of each half
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void grow() {
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+
+        values = new long[2 * oldValues.length];
+        used = new boolean[2 * oldValues.length];
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldUsed[i]) {
+                int slot = slot(oldValues[i]);
+                values[slot] = oldValues[i];
+                used[slot] = true;
+            }
+        }
+    }
+}
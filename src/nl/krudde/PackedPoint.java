@@ -0,0 +1,41 @@
+package nl.krudde;
+
+/**
+ * A {@link Point} packed in a long: x in the upper 32 bits, y in the lower 32 bits.
+ * Packed points can be used as keys of a {@link LongIntMap} or {@link LongSet}, so walking a grid does not allocate.
+ */
+final class PackedPoint {
+    private static final long Y_MASK = 0xffffffffL;
+
+    private PackedPoint() {
+    }
+
+    static long pack(int x, int y) {
+        return (long) x << 32 | (y & Y_MASK);
+    }
+
+    static int x(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    static int y(long packed) {
+        return (int) packed;
+    }
+
+    static long next(long packed, int deltaX, int deltaY) {
+        return pack(x(packed) + deltaX, y(packed) + deltaY);
+    }
+
+    static long next(long packed, Direction direction) {
+        return next(packed, direction, 1);
+    }
+
+    static long next(long packed, Direction direction, int distance) {
+        return switch (direction) {
+            case D -> next(packed, 0, distance);
+            case U -> next(packed, 0, -distance);
+            case R -> next(packed, distance, 0);
+            case L -> next(packed, -distance, 0);
+        };
+    }
+}
@@ -0,0 +1,228 @@
+package nl.krudde;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Crossings between wires, found on the segments of the wires instead of walking every point of them.
+ * <p>
+ * A sweep line moves over x: a horizontal segment is active between its x's, and a vertical segment crosses the active
+ * horizontal segments of the other wires between its y's, which are looked up in a tree on y.
+ * Segments on the same line are matched per line after sorting them on their start.
+ * This takes O((n + k) log n) time and O(n) memory for n segments and k crossings, however long the segments are.
+ * <p>
+ * The sweep is split in strips of vertical segments which are searched in parallel, as are the lines.
+ */
+class SegmentSweep {
+    // strips are not made smaller than this, setting up the active segments of a strip takes a pass over them
+    private static final int MIN_STRIP_SIZE = 1024;
+
+    private SegmentSweep() {
+    }
+
+    /**
+     * Points where two of the wires cross, with the sum of the steps of both wires to reach them.
+     * The start of a wire (at step 0) is not a crossing, nor is a wire crossing itself.
+     * <p>
+     * Where segments overlap on the same line, every point of the overlap is a crossing. Of those, only the points which
+     * can be closest to the origin or take the fewest steps are reported: the ends of the overlap,
+     * the point nearest the origin, and their neighbours.
+     */
+    static List<WireCrossing> crossings(List<Wire> wires, Point origin) {
+        List<WireSegment> segments = IntStream.range(0, wires.size()).parallel()
+                .boxed()
+                .flatMap(wire -> wires.get(wire).getPathList().stream()
+                        .filter(path -> path.getLength() > 0)
+                        .map(path -> new WireSegment(wire, path)))
+                .collect(toList());
+        WireSegment[] horizontals = segments.stream().filter(segment -> segment.path.isHorizontal()).toArray(WireSegment[]::new);
+        WireSegment[] verticals = segments.stream().filter(segment -> !segment.path.isHorizontal()).toArray(WireSegment[]::new);
+
+        List<WireCrossing> crossings = new ArrayList<>(crossPerpendicular(horizontals, verticals));
+        crossings.addAll(crossCollinear(horizontals, true, origin));
+        crossings.addAll(crossCollinear(verticals, false, origin));
+        return crossings;
+    }
+
+    private static List<WireCrossing> crossPerpendicular(WireSegment[] horizontals, WireSegment[] verticals) {
+        WireSegment[] byMinX = horizontals.clone();
+        Arrays.parallelSort(byMinX, Comparator.comparingInt(segment -> segment.path.getMinX()));
+        // indexes in byMinX in the order the segments end
+        int[] removeOrder = IntStream.range(0, byMinX.length).boxed()
+                .sorted(Comparator.comparingInt(i -> byMinX[i].path.getMaxX()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        WireSegment[] verticalsByX = verticals.clone();
+        Arrays.parallelSort(verticalsByX, Comparator.comparingInt(segment -> segment.path.getMinX()));
+
+        int nrStrips = Math.max(1, Math.min(4 * ForkJoinPool.getCommonPoolParallelism(), verticalsByX.length / MIN_STRIP_SIZE));
+        return IntStream.range(0, nrStrips).parallel()
+                .mapToObj(strip -> sweepStrip(byMinX, removeOrder, verticalsByX,
+                        strip * verticalsByX.length / nrStrips, (strip + 1) * verticalsByX.length / nrStrips))
+                .flatMap(List::stream)
+                .collect(toList());
+    }
+
+    /**
+     * Sweep the vertical segments from (inclusive) to (exclusive).
+     */
+    private static List<WireCrossing> sweepStrip(WireSegment[] byMinX, int[] removeOrder, WireSegment[] verticalsByX, int from, int to) {
+        List<WireCrossing> crossings = new ArrayList<>();
+        if (from == to) {
+            return crossings;
+        }
+
+        // active horizontal segments on key (y << 32 | index in byMinX), unique even when segments share a y
+        TreeMap<Long, WireSegment> active = new TreeMap<>();
+        // start with the segments which are active at the x of the first vertical segment
+        int startX = verticalsByX[from].path.getMinX();
+        int nextToAdd = 0;
+        while (nextToAdd < byMinX.length && byMinX[nextToAdd].path.getMinX() <= startX) {
+            if (byMinX[nextToAdd].path.getMaxX() >= startX) {
+                active.put(activeKey(byMinX[nextToAdd].path.getMinY(), nextToAdd), byMinX[nextToAdd]);
+            }
+            nextToAdd++;
+        }
+        int nextToRemove = 0;
+        while (nextToRemove < removeOrder.length && byMinX[removeOrder[nextToRemove]].path.getMaxX() < startX) {
+            nextToRemove++;
+        }
+
+        for (int i = from; i < to; i++) {
+            WireSegment vertical = verticalsByX[i];
+            int x = vertical.path.getMinX();
+            // segments ending at x still cross, so only remove those which ended before x
+            while (nextToAdd < byMinX.length && byMinX[nextToAdd].path.getMinX() <= x) {
+                active.put(activeKey(byMinX[nextToAdd].path.getMinY(), nextToAdd), byMinX[nextToAdd]);
+                nextToAdd++;
+            }
+            while (nextToRemove < removeOrder.length && byMinX[removeOrder[nextToRemove]].path.getMaxX() < x) {
+                int index = removeOrder[nextToRemove];
+                active.remove(activeKey(byMinX[index].path.getMinY(), index));
+                nextToRemove++;
+            }
+
+            for (WireSegment horizontal : active.subMap(activeKey(vertical.path.getMinY(), 0), true, activeKey(vertical.path.getMaxY(), Integer.MAX_VALUE), true).values()) {
+                addCrossing(horizontal, vertical, x, horizontal.path.getMinY(), crossings);
+            }
+        }
+        return crossings;
+    }
+
+    private static long activeKey(int y, int index) {
+        return (long) y << 32 | index;
+    }
+
+    private static List<WireCrossing> crossCollinear(WireSegment[] segments, boolean horizontal, Point origin) {
+        // ordered on their line and then their start on that line
+        WireSegment[] sorted = segments.clone();
+        Arrays.parallelSort(sorted, Comparator.<WireSegment>comparingInt(segment -> line(segment, horizontal))
+                .thenComparingInt(segment -> from(segment, horizontal)));
+        int[] lineStarts = IntStream.range(0, sorted.length)
+                .filter(i -> i == 0 || line(sorted[i], horizontal) != line(sorted[i - 1], horizontal))
+                .toArray();
+
+        return IntStream.range(0, lineStarts.length).parallel()
+                .mapToObj(i -> crossLine(sorted, lineStarts[i], i + 1 < lineStarts.length ? lineStarts[i + 1] : sorted.length, horizontal, origin))
+                .flatMap(List::stream)
+                .collect(toList());
+    }
+
+    /**
+     * Match the segments from (inclusive) to (exclusive), which are on the same line and sorted on their start.
+     */
+    private static List<WireCrossing> crossLine(WireSegment[] sorted, int from, int to, boolean horizontal, Point origin) {
+        List<WireCrossing> crossings = new ArrayList<>();
+        // segments which may still overlap with the next ones
+        List<WireSegment> active = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            WireSegment segment = sorted[i];
+            int start = from(segment, horizontal);
+            // the next segments start at or after this one, so segments which ended before it never overlap again
+            active.removeIf(other -> to(other, horizontal) < start);
+            for (WireSegment other : active) {
+                if (other.wire != segment.wire) {
+                    addOverlap(segment, other, horizontal, line(segment, horizontal), origin, crossings);
+                }
+            }
+            active.add(segment);
+        }
+        return crossings;
+    }
+
+    private static void addOverlap(WireSegment segment, WireSegment other, boolean horizontal, int line, Point origin, List<WireCrossing> crossings) {
+        int from = Math.max(from(segment, horizontal), from(other, horizontal));
+        int to = Math.min(to(segment, horizontal), to(other, horizontal));
+        int nearestOrigin = Math.max(from, Math.min(to, horizontal ? origin.getX() : origin.getY()));
+
+        // steps and distance are linear or convex along the overlap, so their minimum is at one of these points,
+        // or next to one when that one is the start of a wire
+        int[] candidates = {from, from + 1, nearestOrigin - 1, nearestOrigin, nearestOrigin + 1, to - 1, to};
+        for (int position : candidates) {
+            if (position < from || position > to) {
+                continue;
+            }
+            if (horizontal) {
+                addCrossing(segment, other, position, line, crossings);
+            } else {
+                addCrossing(segment, other, line, position, crossings);
+            }
+        }
+    }
+
+    private static void addCrossing(WireSegment segment, WireSegment other, int x, int y, List<WireCrossing> crossings) {
+        if (segment.wire == other.wire) {
+            return;
+        }
+        int steps = segment.path.getStepsAt(x, y);
+        int otherSteps = other.path.getStepsAt(x, y);
+        if (steps > 0 && otherSteps > 0) {
+            crossings.add(new WireCrossing(Math.min(segment.wire, other.wire), Math.max(segment.wire, other.wire), x, y, steps + otherSteps));
+        }
+    }
+
+    private static int line(WireSegment segment, boolean horizontal) {
+        return horizontal ? segment.path.getMinY() : segment.path.getMinX();
+    }
+
+    private static int from(WireSegment segment, boolean horizontal) {
+        return horizontal ? segment.path.getMinX() : segment.path.getMinY();
+    }
+
+    private static int to(WireSegment segment, boolean horizontal) {
+        return horizontal ? segment.path.getMaxX() : segment.path.getMaxY();
+    }
+
+    @AllArgsConstructor
+    private static class WireSegment {
+        // index of the wire
+        private final int wire;
+        private final Path path;
+    }
+}
+
+@Data
+@AllArgsConstructor
+class WireCrossing {
+    // indexes of the crossing wires, wire1 < wire2
+    private final int wire1;
+    private final int wire2;
+    private final int x;
+    private final int y;
+    // sum of the steps of the wires to reach the crossing
+    private final int steps;
+
+    int manhattanDistance(Point point) {
+        return Math.abs(x - point.getX()) + Math.abs(y - point.getY());
+    }
+}
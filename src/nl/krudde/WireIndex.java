@@ -0,0 +1,107 @@
+package nl.krudde;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalInt;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Index of the crossings between any number of wires: per pair of crossing wires the closest crossing to the origin
+ * and the fewest combined steps to a crossing.
+ * <p>
+ * The crossings are found by a {@link SegmentSweep} over the segments of all wires at once, so building the index takes
+ * memory in the order of the number of segments and the number of crossing pairs, not the length of the wires.
+ */
+class WireIndex {
+    private final Point origin;
+    private final int nrWires;
+    // per pair of crossing wires, on key (wire1 << 32 | wire2) with wire1 < wire2
+    private final LongIntMap closestDistances = new LongIntMap();
+    private final LongIntMap fewestSteps = new LongIntMap();
+
+    WireIndex(List<Wire> wires, Point origin) {
+        this.origin = origin;
+        this.nrWires = wires.size();
+        for (WireCrossing crossing : SegmentSweep.crossings(wires, origin)) {
+            long pair = pair(crossing.getWire1(), crossing.getWire2());
+            closestDistances.put(pair, Math.min(closestDistances.getOrDefault(pair, Integer.MAX_VALUE), crossing.manhattanDistance(origin)));
+            fewestSteps.put(pair, Math.min(fewestSteps.getOrDefault(pair, Integer.MAX_VALUE), crossing.getSteps()));
+        }
+    }
+
+    int nrWires() {
+        return nrWires;
+    }
+
+    Point getOrigin() {
+        return origin;
+    }
+
+    /**
+     * @return the Manhattan distance from the origin to the closest crossing of the wires, empty when they do not cross
+     */
+    OptionalInt closestDistance(int wire1, int wire2) {
+        return lookup(closestDistances, wire1, wire2);
+    }
+
+    /**
+     * @return the fewest combined steps of the wires to reach a crossing, empty when they do not cross
+     */
+    OptionalInt fewestSteps(int wire1, int wire2) {
+        return lookup(fewestSteps, wire1, wire2);
+    }
+
+    /**
+     * @return the closest crossing to the origin of any pair of wires
+     */
+    OptionalInt closestDistance() {
+        return Arrays.stream(closestDistances.keys())
+                .mapToInt(pair -> closestDistances.getOrDefault(pair, Integer.MAX_VALUE))
+                .min();
+    }
+
+    /**
+     * @return the fewest combined steps to a crossing of any pair of wires
+     */
+    OptionalInt fewestSteps() {
+        return Arrays.stream(fewestSteps.keys())
+                .mapToInt(pair -> fewestSteps.getOrDefault(pair, Integer.MAX_VALUE))
+                .min();
+    }
+
+    /**
+     * @return all pairs of crossing wires, ordered on their indexes
+     */
+    List<WirePair> getCrossingPairs() {
+        return Arrays.stream(closestDistances.keys())
+                .sorted()
+                .mapToObj(pair -> new WirePair((int) (pair >>> 32), (int) pair,
+                        closestDistances.getOrDefault(pair, Integer.MAX_VALUE), fewestSteps.getOrDefault(pair, Integer.MAX_VALUE)))
+                .collect(toList());
+    }
+
+    private OptionalInt lookup(LongIntMap values, int wire1, int wire2) {
+        if (wire1 < 0 || wire1 >= nrWires || wire2 < 0 || wire2 >= nrWires) {
+            throw new IllegalStateException("unknown wire: " + wire1 + ", " + wire2 + " (#wires: " + nrWires + ")");
+        }
+        long pair = pair(Math.min(wire1, wire2), Math.max(wire1, wire2));
+        return values.containsKey(pair) ? OptionalInt.of(values.getOrDefault(pair, 0)) : OptionalInt.empty();
+    }
+
+    private static long pair(int wire1, int wire2) {
+        return (long) wire1 << 32 | wire2;
+    }
+}
+
+@Data
+@AllArgsConstructor
+class WirePair {
+    private final int wire1;
+    private final int wire2;
+    private final int closestDistance;
+    private final int fewestSteps;
+}